@@ -4,24 +4,35 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.zebrunner.carina.utils.FileManager;
+import com.zebrunner.carina.core.log.TestLogFileType;
+import com.zebrunner.carina.core.report.ReportHistoryCleaner;
+import com.zebrunner.carina.core.report.ScreenshotStore;
+import com.zebrunner.carina.core.report.TestArtifactManifest;
+import com.zebrunner.carina.core.report.email.EmailReport;
 import com.zebrunner.carina.utils.R;
 import com.zebrunner.carina.utils.commons.SpecialKeywords;
 import com.zebrunner.carina.utils.config.Configuration;
@@ -33,6 +44,18 @@ public class ReportConfiguration extends Configuration {
     private static final String CUCUMBER_REPORT_FOLDER = "cucumber-reports";
     private static final String CUCUMBER_REPORT_SUBFOLDER = "cucumber-html-reports";
     private static final String CUCUMBER_REPORT_FILE_NAME = "overview-features.html";
+    // test.log or test.log.gz depending on the ThreadLogAppender file type
+    private static final List<String> TEST_LOG_FILE_NAMES = Stream.of(TestLogFileType.values())
+            .map(TestLogFileType::getFileName)
+            .distinct()
+            .collect(Collectors.toList());
+    private static final String IMAGES_PLACEHOLDER = "${images}";
+    private static final String IMAGE_PLACEHOLDER = "${image}";
+    private static final ExecutorService TEST_REPORT_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "carina-test-report-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public enum Parameter implements IParameter {
 
@@ -73,6 +96,39 @@ public class ReportConfiguration extends Configuration {
          */
         MAX_SCREENSHOOT_HISTORY("max_screen_history"),
 
+        /**
+         * Build emailable report incrementally during the run: every result is appended to the journal
+         * and to the live {@code emailable-report-live.html}, so the report survives the killed run. <b>Default: false</b>
+         */
+        EMAIL_REPORT_JOURNAL("email_report_journal"),
+
+        /**
+         * Max total size in megabytes of the reports artifacts saved in history, older ones are removed. <b>Default: 0 (no limit)</b>
+         */
+        MAX_REPORT_HISTORY_SIZE("max_report_history_size"),
+
+        /**
+         * Max age in days of the reports artifacts saved in history, older ones are removed. <b>Default: 0 (no limit)</b>
+         */
+        MAX_REPORT_HISTORY_AGE("max_report_history_age"),
+
+        /**
+         * Render test report (gallery of the test images) by the background thread instead of the test one. <b>Default: false</b>
+         */
+        TEST_REPORT_ASYNC("test_report_async"),
+
+        /**
+         * Store screenshots once per run under the name of the content hash and reference them from the test reports,
+         * so identical screenshots take the disk space once. <b>Default: false</b>
+         */
+        SCREENSHOT_STORE("screenshot_store"),
+
+        /**
+         * Keep only the compact index of the collected results in heap: description, links and fail reason
+         * are stored in the memory-mapped side file until the emailable report is rendered. <b>Default: false</b>
+         */
+        EMAIL_REPORT_SPILL("email_report_spill"),
+
         /**
          * todo add description
          */
@@ -124,6 +180,26 @@ public class ReportConfiguration extends Configuration {
         }
     }
 
+    /**
+     * Generate HTML report streaming it directly to the disk. <b>For internal usage only</b>
+     *
+     * @param report {@link EmailReport}
+     */
+    public static void generateHtmlReport(EmailReport report) {
+        String emailableReport = SpecialKeywords.HTML_REPORT;
+        Path reportFile = Path.of(System.getProperty("user.dir"))
+                .resolve(Configuration.getRequired(Configuration.Parameter.PROJECT_REPORT_DIRECTORY))
+                .resolve(emailableReport);
+        try {
+            try (Writer writer = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+                report.write(writer);
+            }
+            Files.copy(reportFile, ReportContext.getBaseDirectory().resolve(emailableReport), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.error("generateHtmlReport failure", e);
+        }
+    }
+
     /**
      * Generate HTML report. <b>For internal usage only</b>
      */
@@ -162,16 +238,9 @@ public class ReportConfiguration extends Configuration {
      */
     public static String getTestScreenshotsLink() {
         String link = "";
-        try(Stream<Path> stream =  Files.list(ReportContext.getTestDirectory())
-                .filter(Files::isRegularFile)
-                .filter(path -> path.endsWith("png"))) {
-
-            if (stream.findAny().isEmpty()) {
-                // no png screenshot files at all
-                return link;
-            }
-        } catch (Exception e) {
-            LOGGER.error("Exception during report directory scanning", e);
+        if (!TestArtifactManifest.current().hasScreenshots()) {
+            // no png screenshot files at all
+            return link;
         }
 
         String test = ReportContext.getTestDirectory()
@@ -180,10 +249,11 @@ public class ReportConfiguration extends Configuration {
                 .replaceAll("[^a-zA-Z0-9.-]", "_");
         Optional<String> reportURL = Configuration.get(Parameter.REPORT_URL);
         if (reportURL.isPresent()) {
-            link = String.format("%s/%s/%s/report.html",
-                    reportURL.get(), ReportContext.getBaseDirectory().getFileName(), test);
+            link = String.format("%s/%s/%s/%s",
+                    reportURL.get(), ReportContext.getBaseDirectory().getFileName(), test, TestArtifactManifest.TEST_REPORT_FILE_NAME);
         } else {
-            link = String.format("file://%s/%s/report.html", ReportContext.getBaseDirectory().toAbsolutePath(), test);
+            link = String.format("file://%s/%s/%s", ReportContext.getBaseDirectory().toAbsolutePath(), test,
+                    TestArtifactManifest.TEST_REPORT_FILE_NAME);
         }
         return link;
     }
@@ -195,8 +265,11 @@ public class ReportConfiguration extends Configuration {
      */
     public static String getTestLogLink() {
         String link = "";
-        Path testLogFile = ReportContext.getTestDirectory().resolve("test.log");
-        if (!Files.exists(testLogFile)) {
+        Path testDirectory = ReportContext.getTestDirectory();
+        Optional<String> testLogFileName = TEST_LOG_FILE_NAMES.stream()
+                .filter(fileName -> Files.exists(testDirectory.resolve(fileName)))
+                .findFirst();
+        if (testLogFileName.isEmpty()) {
             // no test.log file at all
             return link;
         }
@@ -208,13 +281,13 @@ public class ReportConfiguration extends Configuration {
         Optional<String> reportURL = Configuration.get(Parameter.REPORT_URL);
 
         if (reportURL.isPresent()) {
-            link = String.format("%s/%s/%s/test.log",
+            link = String.format("%s/%s/%s/%s",
                     reportURL.get(),
                     ReportContext.getBaseDirectory()
                             .getFileName()
-                            .toString(), test);
+                            .toString(), test, testLogFileName.get());
         } else {
-            link = String.format("file://%s/%s/test.log", ReportContext.getBaseDirectory().toAbsolutePath(), test);
+            link = String.format("file://%s/%s/%s", ReportContext.getBaseDirectory().toAbsolutePath(), test, testLogFileName.get());
         }
         return link;
     }
@@ -235,45 +308,83 @@ public class ReportConfiguration extends Configuration {
     }
 
     /**
-     * Generate test report. <b>For internal usage only</b>
+     * Generate test report (gallery of the test images) from the test artifact manifest. <b>For internal usage only</b>
      */
     public static void generateTestReport() {
-        File testDir = ReportContext.getTestDirectory()
-                .toFile();
-        try {
-            List<File> images = FileManager.getFilesInDir(testDir);
-            List<String> imgNames = new ArrayList<>();
-            for (File image : images) {
-                imgNames.add(image.getName());
-            }
-            imgNames.remove("test.log");
-            imgNames.remove("sql.log");
-            if (imgNames.isEmpty())
-                return;
-
-            Collections.sort(imgNames);
+        Path testDirectory = ReportContext.getTestDirectory();
+        List<String> images = TestArtifactManifest.remove(testDirectory).getImages();
+        if (images.isEmpty()) {
+            return;
+        }
+        Optional<ScreenshotStore> store = ScreenshotStore.current();
+        Runnable writeReport = () -> writeTestReport(testDirectory,
+                store.map(s -> moveToStore(s, testDirectory, images)).orElse(images));
+        if (Configuration.get(Parameter.TEST_REPORT_ASYNC, Boolean.class).orElse(false)) {
+            // test directory, images and store are resolved on the test thread, so only rendering is deferred
+            TEST_REPORT_EXECUTOR.execute(writeReport);
+        } else {
+            writeReport.run();
+        }
+    }
 
-            StringBuilder report = new StringBuilder();
-            for (String imgName : imgNames) {
-                // convert toString
-                String image = R.REPORT.get("image");
+    /**
+     * Wait until all test reports submitted before this call are written. <b>For internal usage only</b>
+     *
+     * @param timeout timeout
+     * @param unit unit of the timeout
+     */
+    public static void awaitTestReports(long timeout, TimeUnit unit) {
+        try {
+            TEST_REPORT_EXECUTOR.submit(() -> {
+            }).get(timeout, unit);
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn("Test reports are not written in {} {}", timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-                image = image.replace("${image}", imgName);
+    private static List<String> moveToStore(ScreenshotStore store, Path testDirectory, List<String> images) {
+        List<String> references = new ArrayList<>(images.size());
+        for (String image : images) {
+            // screenshots written into the test directory by the Screenshot, stored ones are already referenced by the path
+            if (image.endsWith(".png") && image.indexOf('/') < 0) {
+                try {
+                    Path stored = store.move(testDirectory.resolve(image));
+                    references.add(FilenameUtils.separatorsToUnix(testDirectory.relativize(stored).toString()));
+                    continue;
+                } catch (IOException e) {
+                    LOGGER.debug("Unable to move screenshot into the store: {}", image, e);
+                }
+            }
+            references.add(image);
+        }
+        return references;
+    }
 
-                image = image.replace("${title}", StringUtils.substring("", 0, 300));
-                report.append(image);
+    private static void writeTestReport(Path testDirectory, List<String> images) {
+        String container = R.REPORT.get("container").replace("${title}", "Test steps demo");
+        int imagesIndex = container.indexOf(IMAGES_PLACEHOLDER);
+        String[] image = StringUtils.splitByWholeSeparatorPreserveAllTokens(R.REPORT.get("image").replace("${title}", ""),
+                IMAGE_PLACEHOLDER);
+        try (Writer writer = Files.newBufferedWriter(testDirectory.resolve(TestArtifactManifest.TEST_REPORT_FILE_NAME),
+                StandardCharsets.UTF_8)) {
+            writer.write(container, 0, imagesIndex);
+            for (String imageName : images) {
+                writer.write(image[0]);
+                for (int i = 1; i < image.length; i++) {
+                    writer.write(imageName);
+                    writer.write(image[i]);
+                }
             }
-            String wholeReport = R.REPORT.get("container").replace("${images}", report.toString());
-            wholeReport = wholeReport.replace("${title}", "Test steps demo");
-            String folder = testDir.getAbsolutePath();
-            FileManager.createFileWithContent(folder + "/report.html", wholeReport);
+            writer.write(container, imagesIndex + IMAGES_PLACEHOLDER.length(), container.length() - imagesIndex - IMAGES_PLACEHOLDER.length());
         } catch (Exception e) {
             LOGGER.error("generateTestReport failure", e);
         }
     }
 
     /**
-     * Removes emailable html report and oldest screenshots directories according to history size defined in config.
+     * Removes emailable html report and oldest screenshots directories according to history size, total size and age defined in config.
      * <b>for internal usage only</b>
      */
     public static void removeOldReports() {
@@ -291,30 +402,12 @@ public class ReportConfiguration extends Configuration {
                 }
             }
 
-            List<File> files = FileManager.getFilesInDir(baseDir);
-            List<File> screenshotFolders = new ArrayList<>();
-            for (File file : files) {
-                if (file.isDirectory() && !file.getName().startsWith(".")) {
-                    screenshotFolders.add(file);
-                }
-            }
-
-            int maxHistory = Configuration.getRequired(Parameter.MAX_SCREENSHOOT_HISTORY, Integer.class);
-
-            if (maxHistory > 0 && screenshotFolders.size() + 1 > maxHistory) {
-                Comparator<File> comp = (file1, file2) -> file2.getName().compareTo(file1.getName());
-                screenshotFolders.sort(comp);
-                for (int i = maxHistory - 1; i < screenshotFolders.size(); i++) {
-                    if (screenshotFolders.get(i).getName().equals("gallery-lib")) {
-                        continue;
-                    }
-                    try {
-                        FileUtils.deleteDirectory(screenshotFolders.get(i));
-                    } catch (IOException e) {
-                        System.out.println((e + "\n" + e.getMessage()));
-                    }
-                }
-            }
+            // expired directories are moved into the trash at once and deleted in background while tests run
+            new ReportHistoryCleaner(baseDir.toPath(),
+                    Configuration.getRequired(Parameter.MAX_SCREENSHOOT_HISTORY, Integer.class),
+                    Configuration.get(Parameter.MAX_REPORT_HISTORY_SIZE, Long.class).orElse(0L) * FileUtils.ONE_MB,
+                    Duration.ofDays(Configuration.get(Parameter.MAX_REPORT_HISTORY_AGE, Integer.class).orElse(0)))
+                    .clean();
         }
     }
 
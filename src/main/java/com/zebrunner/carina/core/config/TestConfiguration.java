@@ -16,6 +16,17 @@ public class TestConfiguration extends Configuration {
          */
         FORCIBLY_DISABLE_DRIVER_QUIT("forcibly_disable_driver_quit"),
 
+        /**
+         * Timeout in seconds for quitting single driver on the shutdown hook. <b>Default: {@code 30}</b>
+         */
+        DRIVER_QUIT_TIMEOUT("driver_quit_timeout"),
+
+        /**
+         * Max time in seconds the shutdown hook waits for all drivers to quit. Drivers are quit concurrently,
+         * the ones not stopped in time are reported and abandoned. <b>Default: {@code 60}</b>
+         */
+        SHUTDOWN_HOOK_TIMEOUT("shutdown_hook_timeout"),
+
         /**
          * Path to the properties file with custom key-value capabilities.
          * Example: {@code zebrunner/chrome.properties}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.filter;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.testng.ITestNGListener;
+
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
+
+/**
+ * Listener that limits the suite methods. Filters of all such listeners linked to the same suite are evaluated
+ * by {@link SuiteTestFilter} in a single pass.
+ */
+public interface ISuiteMethodFilter extends ITestNGListener {
+
+    /**
+     * Get filter of the suite methods
+     *
+     * @return predicate returning true for the methods that should be performed, empty if the filtering is not configured
+     */
+    Optional<Predicate<TestMethodAttributes>> getMethodFilter();
+}
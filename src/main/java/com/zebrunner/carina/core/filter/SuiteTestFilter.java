@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.filter;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IAttributes;
+import org.testng.ISuite;
+import org.testng.ITestNGMethod;
+
+import com.nordstrom.automation.testng.ListenerChain;
+import com.zebrunner.carina.core.testng.SuiteMethodAttributes;
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
+
+/**
+ * Applies filters of the {@link ISuiteMethodFilter} listeners to the suite methods.<br>
+ * The first filter listener started for the suite also evaluates filters of the other ones linked to the same
+ * {@link ListenerChain}, so all filters are checked in a single parallel pass over the shared
+ * {@link SuiteMethodAttributes} and the methods are disabled once. Listeners registered without the chain
+ * are applied separately.<br>
+ * Filter of the linked listener which could not be created (e.g. required filter parameter is missing) is not applied
+ * by the other listener, the linked listener reports the error on its own start.
+ */
+public final class SuiteTestFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String SUITE_ATTRIBUTE = "carinaAppliedSuiteMethodFilters";
+    // suite attribute under which ListenerChain stores itself, it is not exposed by the ListenerChain
+    private static final String LISTENER_CHAIN_ATTRIBUTE = "ListenerChain";
+
+    private SuiteTestFilter() {
+        // do nothing
+    }
+
+    /**
+     * Apply filter of the listener and filters of the linked listeners not applied yet.
+     *
+     * @param suite {@link ISuite}
+     * @param listener listener started for the suite
+     * @param linkedListeners types of the other filter listeners that could be linked to the same chain
+     */
+    @SafeVarargs
+    public static void apply(ISuite suite, ISuiteMethodFilter listener, Class<? extends ISuiteMethodFilter>... linkedListeners) {
+        apply(suite, () -> SuiteMethodAttributes.get(suite).getMethods(), type -> getAttachedListener(suite, type), listener,
+                linkedListeners);
+    }
+
+    /**
+     * Apply filter of the listener and filters of the linked listeners not applied yet.
+     *
+     * @param suite attributes of the suite
+     * @param methods supplier of the suite methods attributes
+     * @param attachedListeners lookup of the listener attached to the suite chain by type
+     * @param listener listener started for the suite
+     * @param linkedListeners types of the other filter listeners that could be linked to the same chain
+     */
+    @SafeVarargs
+    static void apply(IAttributes suite, Supplier<List<TestMethodAttributes>> methods,
+            Function<Class<? extends ISuiteMethodFilter>, Optional<? extends ISuiteMethodFilter>> attachedListeners,
+            ISuiteMethodFilter listener, Class<? extends ISuiteMethodFilter>... linkedListeners) {
+        Set<Class<?>> applied = getAppliedFilters(suite);
+        if (!applied.add(listener.getClass())) {
+            LOGGER.debug("Filter of the {} is already applied.", listener.getClass().getSimpleName());
+            return;
+        }
+
+        List<Predicate<TestMethodAttributes>> filters = new ArrayList<>();
+        listener.getMethodFilter().ifPresent(filters::add);
+        for (Class<? extends ISuiteMethodFilter> linkedListener : linkedListeners) {
+            Optional<? extends ISuiteMethodFilter> linked = attachedListeners.apply(linkedListener);
+            if (linked.isEmpty() || applied.contains(linkedListener)) {
+                continue;
+            }
+            Optional<Predicate<TestMethodAttributes>> linkedFilter;
+            try {
+                linkedFilter = linked.get().getMethodFilter();
+            } catch (Exception e) {
+                LOGGER.debug("Filter of the {} is not applied together with {}: {}", linkedListener.getSimpleName(),
+                        listener.getClass().getSimpleName(), e.getMessage());
+                continue;
+            }
+            if (applied.add(linkedListener)) {
+                linkedFilter.ifPresent(filters::add);
+            }
+        }
+        if (filters.isEmpty()) {
+            return;
+        }
+
+        disable(methods.get(), filters.stream().reduce(Predicate::and).get());
+    }
+
+    /**
+     * Disable methods not satisfying the filter.
+     *
+     * @param methods attributes of the suite methods
+     * @param isPerform filter
+     * @return disabled methods in the suite order
+     */
+    static List<ITestNGMethod> disable(List<TestMethodAttributes> methods, Predicate<TestMethodAttributes> isPerform) {
+        List<ITestNGMethod> disabled = methods.parallelStream()
+                .filter(isPerform.negate())
+                .map(TestMethodAttributes::getMethod)
+                .collect(Collectors.toList());
+        for (ITestNGMethod testMethod : disabled) {
+            LOGGER.info("Disable test: [{}] -> [{}]", testMethod.getRealClass().getSimpleName(), testMethod.getMethodName());
+            testMethod.setInvocationCount(0);
+        }
+        return disabled;
+    }
+
+    private static Optional<? extends ISuiteMethodFilter> getAttachedListener(ISuite suite, Class<? extends ISuiteMethodFilter> type) {
+        if (suite.getAttribute(LISTENER_CHAIN_ATTRIBUTE) == null) {
+            // suite has no ListenerChain, listeners are registered directly
+            return Optional.empty();
+        }
+        return Optional.ofNullable(ListenerChain.getAttachedListener(suite, type).orNull());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Class<?>> getAppliedFilters(IAttributes suite) {
+        synchronized (suite) {
+            Object applied = suite.getAttribute(SUITE_ATTRIBUTE);
+            if (applied == null) {
+                applied = ConcurrentHashMap.newKeySet();
+                suite.setAttribute(SUITE_ATTRIBUTE, applied);
+            }
+            return (Set<Class<?>>) applied;
+        }
+    }
+}
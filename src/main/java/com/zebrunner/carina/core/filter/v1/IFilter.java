@@ -32,6 +32,19 @@ public interface IFilter {
 
     boolean isPerform(ITestNGMethod testMethod, List<String> rules);
 
+    /**
+     * Get values of the test method checked by this filter, e.g. owners or tags.<br>
+     * Values are resolved once per suite ({@link com.zebrunner.carina.core.testng.TestMethodAttributes}) and checked
+     * by the compiled rules ({@link com.zebrunner.carina.core.filter.v1.rule.CompiledRule}).
+     *
+     * @param testMethod test method
+     * @return values of the test method, empty list if the method is not annotated,
+     *         null if the filter does not expose values and the rule has to be checked by {@link #isPerform(ITestNGMethod, List)}
+     */
+    default List<String> getValues(ITestNGMethod testMethod) {
+        return null;
+    }
+
     default boolean ruleCheck(List<String> ruleExpression, List<String> actualValues) {
         String expression = ruleExpression.get(0);
         boolean match;
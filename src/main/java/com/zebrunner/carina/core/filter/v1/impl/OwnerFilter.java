@@ -34,27 +34,10 @@ public class OwnerFilter implements IFilter {
     @Override
     public boolean isPerform(ITestNGMethod testMethod, List<String> rules) {
         if (testMethod != null) {
-            //if test was described only by one OwnerFilter
-            if (testMethod.getConstructorOrMethod().getMethod().isAnnotationPresent(MethodOwner.class)) {
-                MethodOwner ownerAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(MethodOwner.class);
-                if (ownerAnnotation != null) {
-                    String owner = ownerAnnotation.owner().toLowerCase();
-                    LOGGER.info("Test: [{}]. Owners: {}. Expected ownerAnnotation: [{}]", testMethod.getMethodName(), owner, rules);
-                    return ruleCheck(rules, owner);
-                }
-            }
-
-            //if test was described by several OwnerFilters
-            if (testMethod.getConstructorOrMethod().getMethod().isAnnotationPresent(MethodOwner.List.class)) {
-                MethodOwner.List ownerAnnotations = testMethod.getConstructorOrMethod().getMethod().getAnnotation(MethodOwner.List.class);
-                if (ownerAnnotations != null) {
-                    List<String> owners = new ArrayList<>();
-                    for (MethodOwner methodOwner : ownerAnnotations.value()) {
-                        owners.add(methodOwner.owner().toLowerCase());
-                    }
-                    LOGGER.info("Test: [{}]. Owners: {}. Expected owner: [{}]", testMethod.getMethodName(), owners, rules);
-                    return ruleCheck(rules, owners);
-                }
+            List<String> owners = getValues(testMethod);
+            if (!owners.isEmpty()) {
+                LOGGER.info("Test: [{}]. Owners: {}. Expected owner: [{}]", testMethod.getMethodName(), owners, rules);
+                return ruleCheck(rules, owners);
             }
 
             //if test was not described by OwnerFilter annotation
@@ -62,4 +45,24 @@ public class OwnerFilter implements IFilter {
         }
         return false;
     }
+
+    @Override
+    public List<String> getValues(ITestNGMethod testMethod) {
+        //if test was described only by one OwnerFilter
+        MethodOwner ownerAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(MethodOwner.class);
+        if (ownerAnnotation != null) {
+            return List.of(ownerAnnotation.owner().toLowerCase());
+        }
+
+        //if test was described by several OwnerFilters
+        MethodOwner.List ownerAnnotations = testMethod.getConstructorOrMethod().getMethod().getAnnotation(MethodOwner.List.class);
+        if (ownerAnnotations != null) {
+            List<String> owners = new ArrayList<>();
+            for (MethodOwner methodOwner : ownerAnnotations.value()) {
+                owners.add(methodOwner.owner().toLowerCase());
+            }
+            return owners;
+        }
+        return List.of();
+    }
 }
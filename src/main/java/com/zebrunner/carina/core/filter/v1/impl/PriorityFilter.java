@@ -23,7 +23,6 @@ import org.slf4j.LoggerFactory;
 import org.testng.ITestNGMethod;
 
 import com.zebrunner.carina.core.filter.v1.IFilter;
-import com.zebrunner.carina.core.registrar.tag.Priority;
 import com.zebrunner.carina.core.registrar.tag.TestPriority;
 
 public class PriorityFilter implements IFilter {
@@ -32,15 +31,19 @@ public class PriorityFilter implements IFilter {
 
     @Override
     public boolean isPerform(ITestNGMethod testMethod, List<String> rules) {
-        TestPriority priority = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestPriority.class);
-        if (priority == null) {
+        List<String> priority = getValues(testMethod);
+        if (priority.isEmpty()) {
             return ruleCheck(rules);
         } else {
-            Priority testPriority = priority.value();
-            String actualTestPriority = testPriority.toString();
-            LOGGER.info("Test: [{}]. Priority: [{}]. Expected priority: [{}]", testMethod.getMethodName(), actualTestPriority,
+            LOGGER.info("Test: [{}]. Priority: [{}]. Expected priority: [{}]", testMethod.getMethodName(), priority.get(0),
                     rules);
-            return ruleCheck(rules, actualTestPriority);
+            return ruleCheck(rules, priority);
         }
     }
+
+    @Override
+    public List<String> getValues(ITestNGMethod testMethod) {
+        TestPriority priority = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestPriority.class);
+        return priority == null ? List.of() : List.of(priority.value().toString());
+    }
 }
@@ -32,37 +32,11 @@ public class TagFilter implements IFilter {
 
     @Override
     public boolean isPerform(ITestNGMethod testMethod, List<String> rules) {
-        String tagName;
-        String tagValue;
-
         if (testMethod != null) {
-            //if test was described only by one TagFilter
-            if (testMethod.getConstructorOrMethod().getMethod().isAnnotationPresent(TestTag.class)) {
-                TestTag methodAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestTag.class);
-
-                if (methodAnnotation != null) {
-                    tagName = methodAnnotation.name();
-                    tagValue = methodAnnotation.value();
-                    String tag = tagName + "=" + tagValue;
-                    LOGGER.info("Test: [{}]. Tag: [{}]. Expected tag: [{}]", testMethod.getMethodName(), tag, rules);
-                    return ruleCheck(rules, tag);
-                }
-            }
-
-            //if test was described by several TagFilters
-            if (testMethod.getConstructorOrMethod().getMethod().isAnnotationPresent(TestTag.List.class)) {
-                TestTag.List methodAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestTag.List.class);
-                if (methodAnnotation != null) {
-                    List<String> tags = new ArrayList<>();
-                    for (TestTag tag : methodAnnotation.value()) {
-                        tagName = tag.name();
-                        tagValue = tag.value();
-                        String fullTag = tagName + "=" + tagValue;
-                        tags.add(fullTag.toLowerCase());
-                    }
-                    LOGGER.info("Test: [{}]. Tag: [{}]. Expected tag: [{}]", testMethod.getMethodName(), tags, rules);
-                    return ruleCheck(rules, tags);
-                }
+            List<String> tags = getValues(testMethod);
+            if (!tags.isEmpty()) {
+                LOGGER.info("Test: [{}]. Tag: {}. Expected tag: [{}]", testMethod.getMethodName(), tags, rules);
+                return ruleCheck(rules, tags);
             }
 
             //if test was not described by TagFilters
@@ -70,4 +44,24 @@ public class TagFilter implements IFilter {
         }
         return false;
     }
+
+    @Override
+    public List<String> getValues(ITestNGMethod testMethod) {
+        //if test was described only by one TagFilter
+        TestTag tagAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestTag.class);
+        if (tagAnnotation != null) {
+            return List.of(tagAnnotation.name() + "=" + tagAnnotation.value());
+        }
+
+        //if test was described by several TagFilters
+        TestTag.List tagAnnotations = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestTag.List.class);
+        if (tagAnnotations != null) {
+            List<String> tags = new ArrayList<>();
+            for (TestTag tag : tagAnnotations.value()) {
+                tags.add((tag.name() + "=" + tag.value()).toLowerCase());
+            }
+            return tags;
+        }
+        return List.of();
+    }
 }
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.filter.v1.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.zebrunner.carina.core.filter.v1.Filter;
+import com.zebrunner.carina.core.filter.v1.IFilter;
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
+import com.zebrunner.carina.utils.commons.SpecialKeywords;
+
+/**
+ * Rule of the test_run_rules compiled once per suite into the tree of the typed conditions.<br>
+ * Example: {@code PRIORITY=>P1||P2&&!!P3} is compiled into {@code PRIORITY => ((P1 || P2) && !!P3)}
+ */
+public final class CompiledRule {
+
+    private final Rule rule;
+    private final RuleExpression expression;
+
+    private CompiledRule(Rule rule) {
+        this.rule = rule;
+        this.expression = RuleExpression.compile(rule.getRuleExpression());
+    }
+
+    /**
+     * Compile test run rules
+     *
+     * @param ruleStr rules, e.g. {@code PRIORITY=>P1&&P2;;OWNER=>msarychau;;TAGS=>tag1=temp&&feature=reg}
+     * @return compiled rules
+     * @throws com.zebrunner.carina.core.filter.v1.IncorrectFilterException if the rule name is unknown
+     */
+    public static List<CompiledRule> compile(String ruleStr) {
+        List<CompiledRule> rules = new ArrayList<>();
+        if (ruleStr.isEmpty()) {
+            return rules;
+        }
+        if (ruleStr.contains("&amp;&amp;")) {
+            ruleStr = ruleStr.replaceAll("&amp;&amp;", SpecialKeywords.RULE_FILTER_AND_CONDITION);
+        }
+
+        //parsing each rule
+        for (String ruleItem : ruleStr.split(SpecialKeywords.RULE_FILTER_SPLITTER)) {
+            //ruleStructure[0] contains type of the rule, ruleStructure[1] contains the rule description
+            String[] ruleStructure = ruleItem.split(SpecialKeywords.RULE_FILTER_VALUE_SPLITTER);
+            if (ruleStructure.length == 2) {
+                List<String> priority = new ArrayList<>(Arrays.asList(ruleStructure[1].split("(?=&&)|(?=\\|\\|)")));
+                IFilter filter = Filter.getRuleByName(ruleStructure[0]).getFilter();
+                rules.add(new CompiledRule(new Rule(ruleStructure[0], filter, priority)));
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Check the test method against the rule
+     *
+     * @param attributes attributes of the test method resolved once per suite
+     * @return true if the test method should be performed
+     */
+    public boolean isPerform(TestMethodAttributes attributes) {
+        IFilter filter = rule.getTestFilter();
+        List<String> actualValues = attributes.getValues(filter);
+        if (actualValues == null) {
+            // filter does not expose values
+            return filter.isPerform(attributes.getMethod(), rule.getRuleExpression());
+        }
+        return expression.test(actualValues);
+    }
+
+    /**
+     * @return source rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    @Override
+    public String toString() {
+        return rule.getRuleName() + " => " + expression;
+    }
+}
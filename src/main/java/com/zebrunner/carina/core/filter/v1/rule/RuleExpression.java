@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.filter.v1.rule;
+
+import java.util.List;
+
+import com.zebrunner.carina.utils.commons.SpecialKeywords;
+
+/*
+ * Compiled rule expression, e.g. P1||P2&&!!P3. Conditions are applied from left to right without precedence
+ * ((P1 || P2) && !P3) with short-circuit evaluation, the same way the rule is checked by IFilter.ruleCheck.
+ */
+abstract class RuleExpression {
+
+    /**
+     * @param values actual values of the test method, empty if the method is not annotated
+     * @return true if the values satisfy the expression
+     */
+    abstract boolean test(List<String> values);
+
+    /**
+     * Compile prioritized rule expression
+     *
+     * @param ruleExpression value with the highest priority followed by the values prefixed by the condition
+     * @return compiled expression
+     */
+    static RuleExpression compile(List<String> ruleExpression) {
+        RuleExpression expression = value(ruleExpression.get(0));
+        for (int i = 1; i < ruleExpression.size(); i++) {
+            String item = ruleExpression.get(i);
+            if (item.contains(SpecialKeywords.RULE_FILTER_OR_CONDITION)) {
+                expression = new Or(expression,
+                        value(item.substring(item.indexOf(SpecialKeywords.RULE_FILTER_OR_CONDITION) + 2)));
+            } else if (item.contains(SpecialKeywords.RULE_FILTER_AND_CONDITION)) {
+                expression = new And(expression,
+                        value(item.substring(item.indexOf(SpecialKeywords.RULE_FILTER_AND_CONDITION) + 2)));
+            }
+        }
+        return expression;
+    }
+
+    private static RuleExpression value(String value) {
+        if (value.contains(SpecialKeywords.RULE_FILTER_EXCLUDE_CONDITION)) {
+            return new Value(value.substring(value.indexOf(SpecialKeywords.RULE_FILTER_EXCLUDE_CONDITION) + 2), true);
+        }
+        return new Value(value, false);
+    }
+
+    private static final class Value extends RuleExpression {
+        private final String value;
+        private final boolean exclude;
+
+        private Value(String value, boolean exclude) {
+            this.value = value;
+            this.exclude = exclude;
+        }
+
+        @Override
+        boolean test(List<String> values) {
+            for (String actualValue : values) {
+                if (actualValue.equalsIgnoreCase(value)) {
+                    return !exclude;
+                }
+            }
+            return exclude;
+        }
+
+        @Override
+        public String toString() {
+            return exclude ? SpecialKeywords.RULE_FILTER_EXCLUDE_CONDITION + value : value;
+        }
+    }
+
+    private static final class And extends RuleExpression {
+        private final RuleExpression left;
+        private final RuleExpression right;
+
+        private And(RuleExpression left, RuleExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(List<String> values) {
+            return left.test(values) && right.test(values);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + SpecialKeywords.RULE_FILTER_AND_CONDITION + " " + right + ")";
+        }
+    }
+
+    private static final class Or extends RuleExpression {
+        private final RuleExpression left;
+        private final RuleExpression right;
+
+        private Or(RuleExpression left, RuleExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(List<String> values) {
+            return left.test(values) || right.test(values);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + SpecialKeywords.RULE_FILTER_OR_CONDITION + " " + right + ")";
+        }
+    }
+}
@@ -2,10 +2,21 @@ package com.zebrunner.carina.core.filter.v2;
 
 import org.testng.ITestNGMethod;
 
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
 import com.zebrunner.carina.utils.exception.InvalidConfigurationException;
 
 public interface ITestFilter {
 
     boolean isPerform(ITestNGMethod testMethod);
 
+    /**
+     * Check the test method using its attributes resolved once per suite
+     *
+     * @param attributes {@link TestMethodAttributes}
+     * @return true if the test method should be performed
+     */
+    default boolean isPerform(TestMethodAttributes attributes) {
+        return isPerform(attributes.getMethod());
+    }
+
 }
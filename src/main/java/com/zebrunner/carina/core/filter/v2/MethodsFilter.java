@@ -8,6 +8,8 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.testng.ITestNGMethod;
 
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
+
 public class MethodsFilter implements ITestFilter {
 
     private final List<Pattern> patterns;
@@ -21,9 +23,17 @@ public class MethodsFilter implements ITestFilter {
 
     @Override
     public boolean isPerform(ITestNGMethod testMethod) {
+        return testMethod != null && isPerform(testMethod.getRealClass().getSimpleName() + "#" + testMethod.getMethodName());
+    }
+
+    @Override
+    public boolean isPerform(TestMethodAttributes attributes) {
+        return isPerform(attributes.getQualifiedName());
+    }
+
+    private boolean isPerform(String qualifiedName) {
         for (Pattern pattern : patterns) {
-            if (testMethod != null && pattern.matcher(testMethod.getRealClass().getSimpleName() + "#" + testMethod.getMethodName())
-                    .find()) {
+            if (pattern.matcher(qualifiedName).find()) {
                 return true;
             }
         }
@@ -18,7 +18,8 @@ package com.zebrunner.carina.core.filter.v2;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 import org.apache.commons.lang3.concurrent.ConcurrentException;
 import org.apache.commons.lang3.concurrent.LazyInitializer;
@@ -27,12 +28,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ISuite;
 import org.testng.ISuiteListener;
-import org.testng.ITestNGMethod;
 
 import com.zebrunner.carina.core.config.TestConfiguration;
+import com.zebrunner.carina.core.filter.ISuiteMethodFilter;
+import com.zebrunner.carina.core.filter.SuiteTestFilter;
+import com.zebrunner.carina.core.listeners.FilterTestsListener;
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
 import com.zebrunner.carina.utils.config.Configuration;
 
-public class TestRunFilterListener implements ISuiteListener {
+public class TestRunFilterListener implements ISuiteListener, ISuiteMethodFilter {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private static final LazyInitializer<List<ITestFilter>> FILTERS = new LazyInitializer<>() {
@@ -56,24 +60,21 @@ public class TestRunFilterListener implements ISuiteListener {
 
     @Override
     public void onStart(ISuite suite) {
+        // test_run_rules of the linked FilterTestsListener are checked in the same pass
+        SuiteTestFilter.apply(suite, this, FilterTestsListener.class);
+    }
+
+    @Override
+    public Optional<Predicate<TestMethodAttributes>> getMethodFilter() {
         try {
             List<ITestFilter> filters = FILTERS.get();
             if (filters.isEmpty()) {
-                return;
-            }
-
-            for (ITestNGMethod testMethod : suite.getAllMethods().stream().filter(ITestNGMethod::isTest)
-                    .collect(Collectors.toList())) {
-                boolean isPerform = filters.stream()
-                        .allMatch(filter -> filter.isPerform(testMethod));
-
-                if (!isPerform) {
-                    LOGGER.info("Disable test: [{}] -> [{}]", testMethod.getRealClass().getSimpleName(), testMethod.getMethodName());
-                    testMethod.setInvocationCount(0);
-                }
+                return Optional.empty();
             }
+            return Optional.of(attributes -> !attributes.getMethod().isTest()
+                    || filters.stream().allMatch(filter -> filter.isPerform(attributes)));
         } catch (ConcurrentException e) {
-            ExceptionUtils.rethrow(e);
+            return ExceptionUtils.rethrow(e);
         }
     }
 }
@@ -20,6 +20,8 @@ import java.util.Collection;
 import java.util.Map;
 
 import com.zebrunner.carina.core.config.ReportConfiguration;
+import com.zebrunner.carina.core.log.ThreadLogAppender;
+import com.zebrunner.carina.core.report.TestArtifactManifest;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -197,6 +199,10 @@ public class AbstractTestListener extends TestListenerAdapter implements IDriver
         LOGGER.debug("AbstractTestListener->onTestSkipped");
         failItem(result, Messager.TEST_SKIPPED);
         //there is no need to afterTest as it is retry failure and we wanna to proceed with the same test.log etc
+        if (!result.wasRetried()) {
+            // final skip does not generate test report, so the images of the test are not needed anymore
+            TestArtifactManifest.remove(ReportContext.getTestDirectory());
+        }
         super.onTestSkipped(result);
     }
 
@@ -209,7 +215,9 @@ public class AbstractTestListener extends TestListenerAdapter implements IDriver
     protected TestResultItem createTestResult(ITestResult result, TestResultType resultType, String failReason,
             String description) {
         String group = StringEscapeUtils.escapeHtml4(TestNamingService.getPackageName(result));
-        
+
+        // in async logging mode test.log must be complete before the link is generated
+        ThreadLogAppender.flush();
         String linkToLog = ReportConfiguration.getTestLogLink();
         String linkToScreenshots = ReportConfiguration.getTestScreenshotsLink();
 
@@ -15,23 +15,23 @@
  *******************************************************************************/
 package com.zebrunner.carina.core.listeners;
 
-import java.io.File;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
 import com.zebrunner.agent.core.config.provider.SystemPropertiesConfigurationProvider;
 import com.zebrunner.agent.core.webdriver.CapabilitiesCustomizerChain;
 import com.zebrunner.carina.webdriver.core.capability.CarinaCapabilitiesCustomizer;
@@ -59,9 +59,6 @@ import org.testng.ITestResult;
 import org.testng.SkipException;
 import org.testng.internal.ConfigurationMethod;
 import org.testng.xml.XmlSuite;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
 
 import com.zebrunner.agent.core.config.ConfigurationHolder;
 import com.zebrunner.agent.core.config.provider.PropertiesConfigurationProvider;
@@ -77,17 +74,22 @@ import com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry;
 import com.zebrunner.carina.core.IAbstractTest;
 import com.zebrunner.carina.core.config.ReportConfiguration;
 import com.zebrunner.carina.core.config.TestConfiguration;
+import com.zebrunner.carina.core.log.ThreadLogAppender;
 import com.zebrunner.carina.core.registrar.ownership.Ownership;
 import com.zebrunner.carina.core.registrar.ownership.SuiteOwnerResolver;
 import com.zebrunner.carina.core.registrar.tag.PriorityManager;
 import com.zebrunner.carina.core.registrar.tag.TagManager;
+import com.zebrunner.carina.core.report.email.EmailReport;
 import com.zebrunner.carina.core.report.email.EmailReportGenerator;
 import com.zebrunner.carina.core.report.email.EmailReportItemCollector;
+import com.zebrunner.carina.core.report.email.EmailReportJournal;
 import com.zebrunner.carina.core.report.qtest.IQTestManager;
 import com.zebrunner.carina.core.report.testrail.ITestRailManager;
 import com.zebrunner.carina.core.skip.ExpectedSkipManager;
+import com.zebrunner.carina.core.testng.SuiteDependencyIndex;
 import com.zebrunner.carina.core.testng.ZebrunnerNameResolver;
 import com.zebrunner.carina.utils.DateUtils;
+import com.zebrunner.carina.utils.ParameterGenerator;
 import com.zebrunner.carina.utils.R;
 import com.zebrunner.carina.utils.commons.SpecialKeywords;
 import com.zebrunner.carina.utils.config.Configuration;
@@ -99,7 +101,6 @@ import com.zebrunner.carina.utils.report.TestResultItem;
 import com.zebrunner.carina.utils.resources.L10N;
 import com.zebrunner.carina.webdriver.CarinaDriver;
 import com.zebrunner.carina.webdriver.Screenshot;
-import com.zebrunner.carina.webdriver.ScreenshotType;
 import com.zebrunner.carina.webdriver.TestPhase;
 import com.zebrunner.carina.webdriver.TestPhase.Phase;
 import com.zebrunner.carina.webdriver.config.WebDriverConfiguration;
@@ -203,6 +204,9 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
         ChainedMaintainerResolver.addFirst(new Ownership());
 
         setThreadCount(suite);
+        // placeholder values are cached per suite as the configuration could be changed between suites
+        ParameterGenerator.clearCache();
+        SuiteDependencyIndex.build(suite);
 
         WebDriverConfiguration.getCapability(CapabilityType.PLATFORM_NAME).ifPresent(platformName -> {
             if (platformName.equalsIgnoreCase(SpecialKeywords.API)) {
@@ -212,6 +216,8 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
 
         CurrentTestRun.setLocale(WebDriverConfiguration.getLocale().toString());
 
+        configureEmailReportCollector(suite);
+
         Configuration.get(ReportConfiguration.Parameter.APP_VERSION).ifPresent(appVersion -> {
             // register app_version/build as artifact if available...
             if (ConfigurationHolder.isReportingEnabled()) {
@@ -380,20 +386,10 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
     }
 
     private boolean hasDependencies(ITestResult result) {
-        String methodName = result.getMethod().getMethodName();
-        String className = result.getMethod().getTestClass().getName();
-
-        // analyze all suite methods and return true if any of them depends on
-        // existing method
-        List<ITestNGMethod> methods = result.getTestContext().getSuite().getAllMethods();
-        for (ITestNGMethod method : methods) {
-            List<String> dependencies = Arrays.asList(method.getMethodsDependedUpon());
-
-            if (dependencies.contains(methodName) ||
-                    dependencies.contains(className + "." + methodName)) {
-                LOGGER.debug("dependency detected for {}", methodName);
-                return true;
-            }
+        // return true if any of suite methods depends on existing method
+        if (SuiteDependencyIndex.get(result.getTestContext().getSuite()).isDependedUpon(result.getMethod())) {
+            LOGGER.debug("dependency detected for {}", result.getMethod().getMethodName());
+            return true;
         }
         return false;
     }
@@ -459,21 +455,30 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
             });
 
             ReportContext.getTempDir().delete();
+            // failure screenshots are written to the test directories in background
+            FailureScreenshots.awaitWrites(10, TimeUnit.SECONDS);
+            ReportConfiguration.awaitTestReports(10, TimeUnit.SECONDS);
             LOGGER.debug("Generating email report...");
 
-            // Generate emailable html report using regular method
-            EmailReportGenerator report = new EmailReportGenerator(title, env.get(),
-                    Configuration.get(ReportConfiguration.Parameter.APP_VERSION).orElse(""),
-                    browser, DateUtils.now(), EmailReportItemCollector.getTestResults(),
-                    EmailReportItemCollector.getCreatedItems());
+            String appVersion = Configuration.get(ReportConfiguration.Parameter.APP_VERSION).orElse("");
+            String finalTitle = title;
+            // Assemble report from the journal when it was built during the run, otherwise generate it using regular method
+            EmailReport report = EmailReportItemCollector.getJournal()
+                    .map(journal -> journal.toReport(finalTitle, env.get(), appVersion, browser, DateUtils.now(),
+                            EmailReportItemCollector.getCreatedItems()))
+                    .orElseGet(() -> new EmailReportGenerator(finalTitle, env.get(), appVersion, browser, DateUtils.now(),
+                            EmailReportItemCollector.getTestResults(), EmailReportItemCollector.getCreatedItems()));
 
-            String emailContent = report.getEmailBody();
             // Store emailable report under emailable-report.html
-            ReportConfiguration.generateHtmlReport(emailContent);
+            ReportConfiguration.generateHtmlReport(report);
+            // journal of the next suite is started with the results of this one
+            EmailReportItemCollector.closeJournal();
 
             printExecutionSummary(EmailReportItemCollector.getTestResults());
 
             LOGGER.debug("Finish email report generation.");
+            LOGGER.debug("Open test log files: {}, evicted by limit: {}", ThreadLogAppender.getOpenLogFilesCount(),
+                    ThreadLogAppender.getEvictedLogFilesCount());
 
         } catch (Exception e) {
             LOGGER.error("Exception in CarinaListener->onFinish(ISuite suite)", e);
@@ -489,6 +494,29 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
         automaticDriversCleanup = false;
     }
 
+    private void configureEmailReportCollector(ISuite suite) {
+        if (Configuration.get(ReportConfiguration.Parameter.EMAIL_REPORT_SPILL, Boolean.class).orElse(false)) {
+            try {
+                EmailReportItemCollector.startSpill();
+            } catch (IOException e) {
+                LOGGER.error("Unable to create side file for the test results, they will be kept in memory", e);
+            }
+        }
+        if (!Configuration.get(ReportConfiguration.Parameter.EMAIL_REPORT_JOURNAL, Boolean.class).orElse(false)
+                || EmailReportItemCollector.getJournal().isPresent()) {
+            return;
+        }
+        try {
+            EmailReportItemCollector.startJournal(new EmailReportJournal(ReportContext.getBaseDirectory(),
+                    "IN PROGRESS: " + getTitle(suite.getXmlSuite()),
+                    Configuration.get(Configuration.Parameter.ENV).orElse(""),
+                    Configuration.get(ReportConfiguration.Parameter.APP_VERSION).orElse(""),
+                    WebDriverConfiguration.getBrowser().orElse("")));
+        } catch (IOException e) {
+            LOGGER.error("Unable to start email report journal, report will be generated at the end of the run", e);
+        }
+    }
+
     protected String getTitle(XmlSuite suite) {
         AtomicReference<String> browser = new AtomicReference<>("");
         // insert the space before
@@ -578,44 +606,12 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
             return res;
         }
 
-        File file = new File(suite.getXmlSuite().getFileName());
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-
-        documentBuilderFactory.setValidating(false);
-        documentBuilderFactory.setNamespaceAware(true);
-        try {
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/namespaces", false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/validation", false);
-            documentBuilderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
-            documentBuilderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            Document document = documentBuilder.parse(file);
-
-            for (int i = 0; i < document.getChildNodes().getLength(); i++) {
-                NamedNodeMap nodeMapAttributes = document.getChildNodes().item(i).getAttributes();
-                if (nodeMapAttributes == null) {
-                    continue;
-                }
-
-                // get "name" from suite element
-                // <suite verbose="1" name="Carina Demo Tests - API Sample" thread-count="3" >
-                Node nodeName = nodeMapAttributes.getNamedItem("name");
-                if (nodeName == null) {
-                    continue;
-                }
-
-                if (suite.getName().equals(nodeName.getNodeValue())) {
-                    // valid suite node detected
-                    Node nodeAttribute = nodeMapAttributes.getNamedItem(attribute);
-                    if (nodeAttribute != null) {
-                        res = nodeAttribute.getNodeValue();
-                        break;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.warn("Unable to get attribute '" + attribute + "' from suite: " + suite.getXmlSuite().getFileName(), e);
+        // get "name" from suite element
+        // <suite verbose="1" name="Carina Demo Tests - API Sample" thread-count="3" >
+        Map<String, String> attributes = SuiteFileAttributes.getRootAttributes(suite.getXmlSuite().getFileName());
+        if (suite.getName().equals(attributes.get("name"))) {
+            // valid suite node detected
+            res = attributes.getOrDefault(attribute, "");
         }
 
         return res;
@@ -759,10 +755,11 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
     private void takeScreenshot() {
         ConcurrentHashMap<String, CarinaDriver> drivers = getDrivers();
         try {
+            List<WebDriver> webDrivers = new ArrayList<>(drivers.size());
             for (Map.Entry<String, CarinaDriver> entry : drivers.entrySet()) {
-                WebDriver drv = entry.getValue().getDriver();
-                Screenshot.capture(drv, ScreenshotType.UNSUCCESSFUL_DRIVER_ACTION);
+                webDrivers.add(entry.getValue().getDriver());
             }
+            FailureScreenshots.capture(webDrivers, "");
         } catch (Throwable thr) {
             LOGGER.error("Failure detected on screenshot generation after failure: ", thr);
         }
@@ -771,24 +768,31 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
     public static class ShutdownHook extends Thread {
 
         private static final Logger LOGGER = LoggerFactory.getLogger(ShutdownHook.class);
+        private static final int MAX_QUIT_THREADS = 16;
 
         private void quitAllDriversOnHook() {
-            // as it is shutdown hook just try to quit all existing drivers one by one
+            // as it is shutdown hook just try to quit all existing drivers concurrently, hanging ones should not delay the exit
+            Map<String, Runnable> actions = new LinkedHashMap<>();
             for (CarinaDriver carinaDriver : driversPool) {
                 // it is expected that all drivers are killed in appropriate AfterMethod/Class/Suite blocks
                 String name = carinaDriver.getName();
                 LOGGER.warn("Trying to quit driver '{}' on shutdown hook action!", name);
-                carinaDriver.getDevice().disconnectRemote();
-                try {
+                actions.put(name + "@" + Integer.toHexString(System.identityHashCode(carinaDriver)), () -> {
+                    carinaDriver.getDevice().disconnectRemote();
                     LOGGER.debug("Driver closing...{}", name);
                     carinaDriver.getDriver().close();
                     LOGGER.debug("Driver exiting...{}", name);
                     carinaDriver.getDriver().quit();
                     LOGGER.debug("Driver exited...{}", name);
-                } catch (Exception e) {
-                    // do nothing
-                }
+                });
             }
+
+            Map<String, String> failures = new TimeBoundedTeardown(MAX_QUIT_THREADS,
+                    Configuration.get(TestConfiguration.Parameter.DRIVER_QUIT_TIMEOUT, Integer.class).orElse(30),
+                    Configuration.get(TestConfiguration.Parameter.SHUTDOWN_HOOK_TIMEOUT, Integer.class).orElse(60),
+                    TimeUnit.SECONDS)
+                    .run(actions);
+            failures.forEach((name, failure) -> LOGGER.warn("Driver '{}' was not stopped on shutdown hook action: {}", name, failure));
         }
 
         @Override
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.listeners;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.imgscalr.Scalr;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zebrunner.carina.core.report.ScreenshotStore;
+import com.zebrunner.carina.core.report.TestArtifactManifest;
+import com.zebrunner.carina.utils.report.ReportContext;
+import com.zebrunner.carina.webdriver.Screenshot;
+import com.zebrunner.carina.webdriver.ScreenshotType;
+import com.zebrunner.carina.webdriver.screenshot.IScreenshotRule;
+
+/*
+ * Failure screenshots of all session drivers captured concurrently.
+ * Remote round trip and resizing are done on the capture threads with the timeout of the screenshot rule,
+ * the image is uploaded on the test thread (Zebrunner agent binds artifacts to it) and written to the test directory
+ * by the background writer. Single driver and full size screenshots are captured by the Screenshot itself.
+ * Screenshot.capture can't be called on the capture threads: its upload and test directory are bound to the test thread,
+ * so the captured comment check, driver unwrap and page load timeout of the rule are applied here.
+ * The page load timeout of the driver is restored after the capture instead of the Screenshot default.
+ * Screenshot does not expose the resize of the captured bytes, so the rule dimensions are applied here.
+ */
+final class FailureScreenshots {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    // blocked remote call can't be interrupted, so the number of threads held by hanging sessions is limited
+    private static final int MAX_CAPTURE_THREADS = 8;
+    private static final ExecutorService CAPTURE_EXECUTOR = Executors.newFixedThreadPool(MAX_CAPTURE_THREADS,
+            daemonThreadFactory("carina-screenshot"));
+    private static final ExecutorService WRITE_EXECUTOR = Executors.newSingleThreadExecutor(daemonThreadFactory("carina-screenshot-writer"));
+    private static final AtomicInteger FILE_COUNTER = new AtomicInteger();
+    private static final long WRITE_TIMEOUT_SECONDS = 10;
+
+    private FailureScreenshots() {
+        // do nothing
+    }
+
+    /**
+     * Capture failure screenshots of the drivers.
+     *
+     * @param drivers drivers of the current test
+     * @param comment comment to the screenshots, no screenshot is captured if it describes a dead session
+     */
+    static void capture(List<WebDriver> drivers, String comment) {
+        Optional<IScreenshotRule> rule = Screenshot.getRule(ScreenshotType.UNSUCCESSFUL_DRIVER_ACTION);
+        if (rule.isEmpty() || !rule.get().isTakeScreenshot() || drivers.isEmpty() || !Screenshot.isCaptured(comment)) {
+            return;
+        }
+        if (drivers.size() == 1 || rule.get().isAllowFullSize()) {
+            // full size screenshots are scrolled by ashot, so they are not captured concurrently
+            for (WebDriver driver : drivers) {
+                Screenshot.capture(driver, ScreenshotType.UNSUCCESSFUL_DRIVER_ACTION, comment);
+            }
+            return;
+        }
+        List<Future<Path>> writes = capture(drivers, rule.get(), ReportContext.getTestDirectory(), ScreenshotStore.current().orElse(null),
+                FailureScreenshots::upload);
+        // screenshots link of the test result is generated right after the capture, so the images must be in the manifest
+        awaitWrites(writes, WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Capture screenshots concurrently.
+     *
+     * @param drivers drivers
+     * @param rule screenshot rule with the timeout and resize dimensions
+     * @param testDirectory directory of the test, resolved on the test thread
+     * @param store store of the run to write screenshots into instead of the test directory, null if disabled
+     * @param uploader consumer of the image bytes called on the caller thread
+     * @return futures of the written screenshot files
+     */
+    static List<Future<Path>> capture(List<WebDriver> drivers, IScreenshotRule rule, Path testDirectory, ScreenshotStore store,
+            ImageUploader uploader) {
+        List<Future<byte[]>> captures = new ArrayList<>(drivers.size());
+        for (WebDriver driver : drivers) {
+            captures.add(CAPTURE_EXECUTOR.submit(() -> takeScreenshot(driver, rule)));
+        }
+
+        List<Future<Path>> writes = new ArrayList<>(captures.size());
+        long deadline = System.nanoTime() + rule.getTimeout().toNanos();
+        for (Future<byte[]> capture : captures) {
+            byte[] image;
+            try {
+                image = capture.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // removes the task from the queue, running remote call is not interrupted by selenium
+                capture.cancel(true);
+                LOGGER.warn("Unable to capture screenshot during {} sec!", rule.getTimeout().toSeconds());
+                continue;
+            } catch (ExecutionException e) {
+                LOGGER.warn("Unable to capture screenshot due to the {}!", e.getCause().getClass().getSimpleName());
+                LOGGER.debug("Error stacktrace: ", e.getCause());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return writes;
+            }
+            if (image == null) {
+                continue;
+            }
+            long timestamp = Instant.now().toEpochMilli();
+            uploader.upload(image, timestamp);
+            // the gallery references the image only after it is written successfully
+            if (store != null) {
+                writes.add(WRITE_EXECUTOR.submit(() -> addToManifest(testDirectory, store.put(image))));
+                continue;
+            }
+            Path file = testDirectory.resolve(timestamp + "-" + FILE_COUNTER.incrementAndGet() + ".png");
+            writes.add(WRITE_EXECUTOR.submit(() -> addToManifest(testDirectory, Files.write(file, image))));
+        }
+        return writes;
+    }
+
+    private static Path addToManifest(Path testDirectory, Path image) {
+        TestArtifactManifest.get(testDirectory).add(image);
+        return image;
+    }
+
+    /**
+     * Wait until the specified screenshot writes are finished. Failed writes are logged and skipped.
+     *
+     * @param writes writes returned by the capture
+     * @param timeout timeout for all writes
+     * @param unit unit of the timeout
+     */
+    static void awaitWrites(List<Future<Path>> writes, long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Future<Path> write : writes) {
+            try {
+                write.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                LOGGER.warn("Unable to write failure screenshot!");
+                LOGGER.debug("Error stacktrace: ", e.getCause());
+            } catch (TimeoutException e) {
+                LOGGER.warn("Failure screenshots are not written in {} {}", timeout, unit);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wait until all screenshots submitted before this call are written to the disk.
+     *
+     * @param timeout timeout
+     * @param unit unit of the timeout
+     */
+    static void awaitWrites(long timeout, TimeUnit unit) {
+        try {
+            WRITE_EXECUTOR.submit(() -> {
+            }).get(timeout, unit);
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn("Failure screenshots are not written in {} {}", timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] takeScreenshot(WebDriver driver, IScreenshotRule rule) throws IOException {
+        WebDriver original = driver instanceof Decorated ? (WebDriver) ((Decorated<?>) driver).getOriginal() : driver;
+        if (!(original instanceof TakesScreenshot)) {
+            return null;
+        }
+        byte[] image;
+        // dead session fails here with NoSuchSessionException before the screenshot request
+        Optional<Duration> pageLoadTimeout = getPageLoadTimeout(original);
+        pageLoadTimeout.ifPresent(timeout -> original.manage().timeouts().pageLoadTimeout(rule.getTimeout()));
+        try {
+            image = ((TakesScreenshot) original).getScreenshotAs(OutputType.BYTES);
+        } finally {
+            pageLoadTimeout.ifPresent(timeout -> original.manage().timeouts().pageLoadTimeout(timeout));
+        }
+        ImmutablePair<Integer, Integer> dimensions = rule.getImageResizeDimensions();
+        if (dimensions == null || dimensions.getLeft() == null || dimensions.getRight() == null) {
+            return image;
+        }
+        BufferedImage bufferedImage = ImageIO.read(new ByteArrayInputStream(image));
+        if (bufferedImage == null) {
+            return image;
+        }
+        BufferedImage resized = Scalr.resize(bufferedImage, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, dimensions.getLeft(),
+                dimensions.getRight(), Scalr.OP_ANTIALIAS);
+        if (resized.getHeight() > dimensions.getRight()) {
+            resized = Scalr.crop(resized, resized.getWidth(), dimensions.getRight());
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(resized, "png", output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Get current page load timeout of the driver
+     *
+     * @param driver driver
+     * @return timeout or empty if the driver does not support page load timeout
+     */
+    private static Optional<Duration> getPageLoadTimeout(WebDriver driver) {
+        try {
+            return Optional.ofNullable(driver.manage().timeouts().getPageLoadTimeout());
+        } catch (UnsupportedCommandException e) {
+            LOGGER.debug("Appium: Not implemented yet for pageLoad timeout!");
+            return Optional.empty();
+        }
+    }
+
+    private static void upload(byte[] image, long timestamp) {
+        com.zebrunner.agent.core.registrar.Screenshot.upload(image, timestamp);
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    interface ImageUploader {
+        void upload(byte[] image, long timestamp);
+    }
+}
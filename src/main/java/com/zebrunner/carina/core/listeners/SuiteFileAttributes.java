@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.listeners;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Attributes of the root <suite> element of TestNG suite files.
+ * The file is read by the streaming parser which stops right after the root element start, so the size of the suite
+ * does not matter, and the result is cached per file path.
+ */
+final class SuiteFileAttributes {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+    private static final Map<Path, Map<String, String>> ROOT_ATTRIBUTES = new ConcurrentHashMap<>();
+
+    private SuiteFileAttributes() {
+        // do nothing
+    }
+
+    /**
+     * Get attributes of the root element of the suite file.
+     *
+     * @param fileName path to the suite file
+     * @return attributes by name, empty if the file could not be parsed
+     */
+    static Map<String, String> getRootAttributes(String fileName) {
+        return ROOT_ATTRIBUTES.computeIfAbsent(Path.of(fileName).toAbsolutePath().normalize(), SuiteFileAttributes::parse);
+    }
+
+    private static Map<String, String> parse(Path file) {
+        try (InputStream input = Files.newInputStream(file)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        Map<String, String> attributes = new HashMap<>();
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                        }
+                        return Collections.unmodifiableMap(attributes);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            LOGGER.warn("Unable to read attributes of the suite: " + file, e);
+        }
+        return Map.of();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // DOCTYPE of the suite is skipped without loading testng dtd
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        return factory;
+    }
+}
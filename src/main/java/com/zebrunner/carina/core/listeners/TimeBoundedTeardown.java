@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.listeners;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Runs named teardown actions concurrently on the bounded pool of daemon threads.
+ * Action which runs longer than the per-action timeout is interrupted and reported, actions still running or queued
+ * when the global deadline is reached are abandoned, so the caller never waits longer than the deadline.
+ */
+final class TimeBoundedTeardown {
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final int maxThreads;
+    private final long actionTimeoutNanos;
+    private final long deadlineNanos;
+
+    TimeBoundedTeardown(int maxThreads, long actionTimeout, long deadline, TimeUnit unit) {
+        this.maxThreads = maxThreads;
+        this.actionTimeoutNanos = unit.toNanos(actionTimeout);
+        this.deadlineNanos = unit.toNanos(deadline);
+    }
+
+    /**
+     * Run actions and wait until all of them are finished, timed out or the deadline is reached.
+     *
+     * @param actions teardown actions by name
+     * @return failure description by name of the action which failed or did not finish in time
+     */
+    Map<String, String> run(Map<String, Runnable> actions) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        if (actions.isEmpty()) {
+            return failures;
+        }
+        long deadline = System.nanoTime() + deadlineNanos;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(actions.size(), maxThreads), runnable -> {
+            Thread thread = new Thread(runnable, "carina-teardown");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Action> running = new ArrayList<>();
+            actions.forEach((name, action) -> {
+                Action task = new Action(name, action);
+                task.future = executor.submit(task);
+                running.add(task);
+            });
+            executor.shutdown();
+
+            while (!running.isEmpty()) {
+                long now = System.nanoTime();
+                boolean deadlineReached = now - deadline >= 0;
+                Iterator<Action> iterator = running.iterator();
+                while (iterator.hasNext()) {
+                    Action task = iterator.next();
+                    if (task.future.isDone()) {
+                        if (task.failure != null) {
+                            failures.put(task.name, task.failure);
+                        }
+                        iterator.remove();
+                    } else if (deadlineReached) {
+                        task.future.cancel(true);
+                        failures.put(task.name, task.startTime == 0 ? "not started before the deadline" : "not finished before the deadline");
+                        iterator.remove();
+                    } else if (task.startTime != 0 && now - task.startTime > actionTimeoutNanos) {
+                        task.future.cancel(true);
+                        failures.put(task.name, "timed out after " + TimeUnit.NANOSECONDS.toSeconds(actionTimeoutNanos) + " sec");
+                        iterator.remove();
+                    }
+                }
+                if (!running.isEmpty()) {
+                    TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    private static final class Action implements Runnable {
+        private final String name;
+        private final Runnable action;
+        private Future<?> future;
+        // 0 while the action is waiting in the queue
+        private volatile long startTime = 0;
+        private volatile String failure = null;
+
+        private Action(String name, Runnable action) {
+            this.name = name;
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            startTime = System.nanoTime();
+            try {
+                action.run();
+            } catch (Exception e) {
+                failure = String.valueOf(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+
+/*
+ * Background writer for the async mode of ThreadLogAppender.
+ * Test threads only format the line and publish it into the ring buffer, single writer thread drains it,
+ * encodes lines into bytes and flushes every touched test.log once per batch.
+ */
+final class AsyncLogWriter {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final LogRingBuffer<LogLine> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final TestLogFileRegistry logFiles;
+    private final TestLogFileType fileType;
+    // null when the structured event log is disabled
+    private final TestLogFileRegistry eventLogFiles;
+    private final Thread writerThread;
+
+    // consumer side of the buffer and dirty files are guarded by this lock
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final Set<TestLogFile> dirtyFiles = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile long flushedPosition = 0;
+    private volatile boolean idle = false;
+    private volatile boolean running = true;
+
+    AsyncLogWriter(int bufferSize, OverflowPolicy overflowPolicy, TestLogFileRegistry logFiles, TestLogFileType fileType,
+            TestLogFileRegistry eventLogFiles) {
+        this.buffer = new LogRingBuffer<>(bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.logFiles = logFiles;
+        this.fileType = fileType;
+        this.eventLogFiles = eventLogFiles;
+        this.writerThread = new Thread(this::run, "carina-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "carina-log-writer-shutdown"));
+    }
+
+    /**
+     * Publish formatted log line for the writer thread. Applies overflow policy when the buffer is full.
+     *
+     * @param testDirectory directory of the test the line belongs to
+     * @param level level of the original event
+     * @param line formatted log line
+     * @param event structured event, null when the event log is disabled
+     */
+    void enqueue(Path testDirectory, Level level, String line, TestEvent event) {
+        LogLine logLine = new LogLine(testDirectory, line, event);
+        if (buffer.offer(logLine)) {
+            wakeUpWriter();
+            return;
+        }
+
+        switch (overflowPolicy) {
+        case DROP_DEBUG:
+            if (level.isLessSpecificThan(Level.DEBUG)) {
+                droppedEvents.incrementAndGet();
+                return;
+            }
+            awaitFreeSlot(logLine);
+            break;
+        case SPILL:
+            spill(logLine);
+            break;
+        default:
+            awaitFreeSlot(logLine);
+            break;
+        }
+    }
+
+    /**
+     * Flush barrier: block until every line published before this call is written and flushed to disk.
+     */
+    void flush() {
+        long target = buffer.getProducerPosition();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (flushedPosition < target) {
+            if (!writerThread.isAlive()) {
+                drainOnCallerThread(target);
+                return;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                LOGGER.warn("Timed out waiting for test logs to be flushed by the async writer.");
+                return;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Write all pending lines and close test.log of the test directory.
+     *
+     * @param testDirectory directory of the finished test
+     */
+    void close(Path testDirectory) {
+        drainLock.lock();
+        try {
+            drainUntil(buffer.getProducerPosition());
+            logFiles.close(testDirectory);
+            if (eventLogFiles != null) {
+                eventLogFiles.close(testDirectory);
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void run() {
+        while (running || !buffer.isEmpty()) {
+            int drained;
+            drainLock.lock();
+            try {
+                drained = drain(MAX_BATCH_SIZE);
+            } finally {
+                drainLock.unlock();
+            }
+
+            if (drained == 0) {
+                idle = true;
+                if (running && buffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    private void wakeUpWriter() {
+        if (idle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void awaitFreeSlot(LogLine logLine) {
+        do {
+            if (!writerThread.isAlive()) {
+                spill(logLine);
+                return;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+        } while (!buffer.offer(logLine));
+        wakeUpWriter();
+    }
+
+    private void spill(LogLine logLine) {
+        drainLock.lock();
+        try {
+            // everything published earlier (including own lines of this thread) has to be written first to keep the order
+            drainUntil(buffer.getProducerPosition());
+            write(logLine);
+            flushDirtyFiles();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drainOnCallerThread(long target) {
+        drainLock.lock();
+        try {
+            drainUntil(target);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // must be called under drainLock
+    private int drain(int maxLines) {
+        int drained = 0;
+        LogLine logLine;
+        while (drained < maxLines && (logLine = buffer.poll()) != null) {
+            write(logLine);
+            drained++;
+        }
+        flushDirtyFiles();
+        return drained;
+    }
+
+    // must be called under drainLock
+    private void drainUntil(long target) {
+        while (buffer.getConsumerPosition() < target) {
+            LogLine logLine = buffer.poll();
+            if (logLine == null) {
+                // position is claimed by a producer but the line is not published yet
+                Thread.onSpinWait();
+                continue;
+            }
+            write(logLine);
+        }
+        flushDirtyFiles();
+    }
+
+    private void write(LogLine logLine) {
+        try {
+            write(logFiles, fileType, logLine.testDirectory, LogLineFormatter.get().encode(logLine.line));
+            if (logLine.event != null) {
+                write(eventLogFiles, TestLogFileType.STREAM, logLine.testDirectory, TestEventEncoder.get().encode(logLine.event));
+            }
+        } catch (IOException e) {
+            LOGGER.error("Unable to write test log line into " + logLine.testDirectory, e);
+        }
+    }
+
+    private void write(TestLogFileRegistry registry, TestLogFileType type, Path testDirectory, ByteBuffer bytes) throws IOException {
+        TestLogFile file = registry.acquire(testDirectory, type, true);
+        if (!file.write(bytes)) {
+            // closed by another thread right after acquiring
+            file = registry.acquire(testDirectory, type, true);
+            file.write(bytes);
+        }
+        dirtyFiles.add(file);
+    }
+
+    private void flushDirtyFiles() {
+        for (TestLogFile file : dirtyFiles) {
+            try {
+                file.flush();
+            } catch (IOException e) {
+                LOGGER.error("Unable to flush test log", e);
+            }
+        }
+        dirtyFiles.clear();
+        flushedPosition = buffer.getConsumerPosition();
+    }
+
+    private void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        drainLock.lock();
+        try {
+            drain(Integer.MAX_VALUE);
+            logFiles.closeAll();
+            if (eventLogFiles != null) {
+                eventLogFiles.closeAll();
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private static final class LogLine {
+        private final Path testDirectory;
+        private final String line;
+        private final TestEvent event;
+
+        private LogLine(Path testDirectory, String line, TestEvent event) {
+            this.testDirectory = testDirectory;
+            this.line = line;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * test.log.gz compressed on the fly. While writing the deflater is sync-flushed periodically (not per line, that would kill the ratio),
+ * every explicit flush sync-flushes it, so the file written before a crash can still be decompressed up to the last flush.
+ * Reopened file is appended as the new gzip member, concatenated members are read by gzip/zcat as the single stream.
+ * Uncompressed size of the previous members can't be read from the file, so it is passed by the registry on reopen.
+ */
+final class GzipTestLogFile implements TestLogFile {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long SYNC_FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final GZIPOutputStream stream;
+    // size limit is applied to the uncompressed log
+    private long writtenBytes;
+    private long lastSyncFlush = System.nanoTime();
+    private volatile boolean closed = false;
+
+    /**
+     * @param file test.log.gz
+     * @param writtenBytes uncompressed size of the content written into the file before
+     * @throws IOException if file could not be opened
+     */
+    GzipTestLogFile(File file, long writtenBytes) throws IOException {
+        this.stream = new GZIPOutputStream(new FileOutputStream(file, true), BUFFER_SIZE, true);
+        this.writtenBytes = writtenBytes;
+    }
+
+    @Override
+    public synchronized boolean write(ByteBuffer bytes) throws IOException {
+        if (closed) {
+            return false;
+        }
+        int length = bytes.remaining();
+        long newWrittenBytes = writtenBytes + length;
+        if (newWrittenBytes > ThreadLogAppender.MAX_LOG_FILE_SIZE_IN_MEGABYTES) {
+            throw TestLogFile.sizeLimitExceeded(newWrittenBytes);
+        }
+        stream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), length);
+        writtenBytes = newWrittenBytes;
+        syncFlushIfDue();
+        return true;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            stream.flush();
+            lastSyncFlush = System.nanoTime();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            stream.close();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    // sync flush of the deflater while writing is done at most once per interval
+    private void syncFlushIfDue() throws IOException {
+        long now = System.nanoTime();
+        if (now - lastSyncFlush >= SYNC_FLUSH_INTERVAL_NANOS) {
+            stream.flush();
+            lastSyncFlush = now;
+        }
+    }
+}
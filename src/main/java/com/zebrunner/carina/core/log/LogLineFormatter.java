@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+import org.slf4j.MDC;
+
+/*
+ * Garbage-free formatter of test.log lines: "[yyyy-MM-dd hh:mm:ss] [threadId] [LEVEL] message\n".
+ * Every logging thread owns an instance, so the line builder, the char/byte buffers and the encoder are reused
+ * and the timestamp prefix is formatted only once per second.
+ */
+final class LogLineFormatter {
+
+    private static final DateTimeFormatter LOG_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss");
+    private static final String THREAD_ID_MDC_KEY = "threadId";
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<LogLineFormatter> FORMATTER = ThreadLocal.withInitial(LogLineFormatter::new);
+
+    private final long threadId;
+    private final String threadIdMdcValue;
+    private final CharsetEncoder encoder;
+    private final StringBuilder line = new StringBuilder(INITIAL_CAPACITY);
+
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private ByteBuffer byteBuffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    private int messageStart = 0;
+    private long cachedEpochSecond = Long.MIN_VALUE;
+    private String cachedTimePrefix = "";
+
+    private LogLineFormatter() {
+        this.threadId = Thread.currentThread().getId();
+        this.threadIdMdcValue = "-" + threadId;
+        // FileWriter used default charset, so keep it to produce the same bytes
+        this.encoder = Charset.defaultCharset()
+                .newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * @return formatter of the current thread
+     */
+    static LogLineFormatter get() {
+        return FORMATTER.get();
+    }
+
+    /**
+     * Format event into the reusable line builder of the current thread.
+     * Returned builder is valid only until the next call on the same thread.
+     *
+     * @param event {@link LogEvent}
+     * @return formatted line including line separator
+     */
+    StringBuilder format(LogEvent event) {
+        if (!threadIdMdcValue.equals(MDC.get(THREAD_ID_MDC_KEY))) {
+            MDC.put(THREAD_ID_MDC_KEY, threadIdMdcValue);
+        }
+
+        if (line.capacity() > MAX_RETAINED_CAPACITY) {
+            // do not keep huge buffer of the single big message for the whole thread lifetime
+            line.setLength(0);
+            line.trimToSize();
+            line.ensureCapacity(INITIAL_CAPACITY);
+        }
+        line.setLength(0);
+        line.append(getTimePrefix(event.getInstant().getEpochSecond()))
+                .append('[')
+                .append(threadId)
+                .append("] [")
+                .append(event.getLevel().name())
+                .append("] ");
+        messageStart = line.length();
+
+        Message eventMessage = event.getMessage();
+        if (eventMessage instanceof StringBuilderFormattable) {
+            ((StringBuilderFormattable) eventMessage).formatTo(line);
+        } else if (eventMessage != null) {
+            line.append(eventMessage.getFormattedMessage());
+        }
+        return line.append('\n');
+    }
+
+    /**
+     * @return id of the thread which owns this formatter
+     */
+    long getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * @return index of the message in the line produced by the last {@link #format(LogEvent)} call,
+     *         message ends right before the trailing line separator
+     */
+    int getMessageStart() {
+        return messageStart;
+    }
+
+    /**
+     * Encode line produced by the last {@link #format(LogEvent)} call.
+     * Returned buffer is valid only until the next call on the same thread.
+     *
+     * @return byte buffer ready to be read from position 0 to limit
+     */
+    ByteBuffer encode() {
+        return encode(line);
+    }
+
+    /**
+     * Encode any already formatted line, used by the async writer thread.
+     * Returned buffer is valid only until the next call on the same thread.
+     *
+     * @param text formatted line
+     * @return byte buffer ready to be read from position 0 to limit
+     */
+    ByteBuffer encode(CharSequence text) {
+        int length = text.length();
+        if (chars.length < length || chars.length > MAX_RETAINED_CAPACITY) {
+            chars = new char[Math.max(length, INITIAL_CAPACITY)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        if (text instanceof String) {
+            ((String) text).getChars(0, length, chars, 0);
+        } else if (text instanceof StringBuilder) {
+            ((StringBuilder) text).getChars(0, length, chars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = text.charAt(i);
+            }
+        }
+        charBuffer.clear().limit(length);
+
+        int requiredBytes = (int) (length * encoder.maxBytesPerChar()) + 1;
+        if (byteBuffer.capacity() < requiredBytes || byteBuffer.capacity() > MAX_RETAINED_CAPACITY) {
+            byteBuffer = ByteBuffer.allocate(Math.max(requiredBytes, INITIAL_CAPACITY));
+        }
+        byteBuffer.clear();
+        encoder.reset();
+        encoder.encode(charBuffer, byteBuffer, true);
+        encoder.flush(byteBuffer);
+        byteBuffer.flip();
+        return byteBuffer;
+    }
+
+    private String getTimePrefix(long epochSecond) {
+        if (epochSecond != cachedEpochSecond) {
+            cachedTimePrefix = "[" + LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).format(LOG_TIME_FORMATTER) + "] ";
+            cachedEpochSecond = epochSecond;
+        }
+        return cachedTimePrefix;
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Bounded lock-free multi-producer/single-consumer ring buffer.
+ * Every slot has its own sequence number, so producers only compete on the claim of the next position
+ * and the consumer never sees a slot before its element is published.
+ * Only one thread at a time is allowed to poll (AsyncLogWriter guards the consumer side with a lock).
+ */
+final class LogRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // next position to be claimed by a producer
+    private final AtomicLong producerPosition = new AtomicLong();
+    // next position to be read by the consumer
+    private volatile long consumerPosition = 0;
+
+    LogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish element into the buffer.
+     *
+     * @param element E
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = producerPosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = producerPosition.get();
+            } else if (difference < 0) {
+                // the slot still holds an element from the previous lap
+                return false;
+            } else {
+                position = producerPosition.get();
+            }
+        }
+    }
+
+    /**
+     * Take the oldest published element. Must not be called concurrently.
+     *
+     * @return element or null if nothing is published yet
+     */
+    E poll() {
+        long position = consumerPosition;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.set(index, null);
+        sequences.set(index, position + mask + 1);
+        consumerPosition = position + 1;
+        return element;
+    }
+
+    boolean isEmpty() {
+        return consumerPosition >= producerPosition.get();
+    }
+
+    long getProducerPosition() {
+        return producerPosition.get();
+    }
+
+    long getConsumerPosition() {
+        return consumerPosition;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * test.log written into the memory-mapped region preallocated in chunks.
+ * Lines are copied into the page cache without any syscall; the new chunk is mapped only when the current one is full.
+ * Between flushes the file contains zero-filled preallocated tail, so readers see the exact content only after
+ * flush (the test result barrier) or close, which truncate the file to the real length.
+ * The next write after flush maps the new chunk.
+ */
+final class MappedTestLogFile implements TestLogFile {
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer region = null;
+    // real length of the file content
+    private long writtenBytes;
+    private volatile boolean closed = false;
+
+    MappedTestLogFile(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.writtenBytes = channel.size();
+    }
+
+    @Override
+    public synchronized boolean write(ByteBuffer bytes) throws IOException {
+        if (closed) {
+            return false;
+        }
+        int length = bytes.remaining();
+        long newWrittenBytes = writtenBytes + length;
+        if (newWrittenBytes > ThreadLogAppender.MAX_LOG_FILE_SIZE_IN_MEGABYTES) {
+            throw TestLogFile.sizeLimitExceeded(newWrittenBytes);
+        }
+        if (region == null || region.remaining() < length) {
+            // mapping beyond the end of file extends it, so the next chunk is preallocated by this call
+            region = channel.map(FileChannel.MapMode.READ_WRITE, writtenBytes, Math.max(CHUNK_SIZE, length));
+        }
+        region.put(bytes.duplicate());
+        writtenBytes = newWrittenBytes;
+        return true;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (closed || region == null) {
+            return;
+        }
+        // access to the truncated part of the mapping is not allowed, so the current chunk is dropped
+        region = null;
+        channel.truncate(writtenBytes);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        region = null;
+        try {
+            channel.truncate(writtenBytes);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized long getWrittenBytes() {
+        return writtenBytes;
+    }
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+/**
+ * What {@link ThreadLogAppender} does with a log event when the async ring buffer is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Wait until the writer thread frees a slot in the buffer
+     */
+    BLOCK,
+
+    /**
+     * Discard DEBUG and TRACE events, wait for a free slot for everything else
+     */
+    DROP_DEBUG,
+
+    /**
+     * Drain the buffer to disk on the logging thread and write the event synchronously
+     */
+    SPILL;
+
+    public static OverflowPolicy parse(String value) {
+        try {
+            return OverflowPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return BLOCK;
+        }
+    }
+}
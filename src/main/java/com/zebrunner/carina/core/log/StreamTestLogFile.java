@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/*
+ * test.log written through the regular file stream in append mode.
+ * Unbuffered stream writes every line with the single syscall (sync mode),
+ * buffered one collects the whole batch until flush (async mode).
+ */
+final class StreamTestLogFile implements TestLogFile {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream stream;
+    private long writtenBytes;
+    private volatile boolean closed = false;
+
+    StreamTestLogFile(File file, boolean buffered) throws IOException {
+        OutputStream fileStream = new FileOutputStream(file, true);
+        this.stream = buffered ? new BufferedOutputStream(fileStream, BUFFER_SIZE) : fileStream;
+        this.writtenBytes = file.length();
+    }
+
+    @Override
+    public synchronized boolean write(ByteBuffer bytes) throws IOException {
+        if (closed) {
+            return false;
+        }
+        int length = bytes.remaining();
+        long newWrittenBytes = writtenBytes + length;
+        if (newWrittenBytes > ThreadLogAppender.MAX_LOG_FILE_SIZE_IN_MEGABYTES) {
+            throw TestLogFile.sizeLimitExceeded(newWrittenBytes);
+        }
+        stream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), length);
+        writtenBytes = newWrittenBytes;
+        return true;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            stream.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            stream.close();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized long getWrittenBytes() {
+        return writtenBytes;
+    }
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+/**
+ * Single record of the structured test event log written by {@link ThreadLogAppender} next to test.log.
+ */
+public final class TestEvent {
+
+    private final String level;
+    private final long epochNanos;
+    private final long threadId;
+    private final String loggerName;
+    private final String message;
+
+    public TestEvent(String level, long epochNanos, long threadId, String loggerName, String message) {
+        this.level = level;
+        this.epochNanos = epochNanos;
+        this.threadId = threadId;
+        this.loggerName = loggerName;
+        this.message = message;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * @return event time in nanoseconds since the epoch
+     */
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "TestEvent{" +
+                "level='" + level + '\'' +
+                ", epochNanos=" + epochNanos +
+                ", threadId=" + threadId +
+                ", loggerName='" + loggerName + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
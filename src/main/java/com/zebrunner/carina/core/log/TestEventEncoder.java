@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Encodes test events into the length-prefixed binary records read by TestEventLogReader:
+ * int record length (excluding this field), long epoch nanos, long thread id,
+ * then level, logger name and message as int length prefixed UTF-8 strings.
+ * Every thread owns an instance, so the buffers and the encoder are reused between events.
+ */
+final class TestEventEncoder {
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    // record length, epoch nanos, thread id and three string lengths
+    private static final int FIXED_FIELDS_SIZE = Integer.BYTES + 2 * Long.BYTES + 3 * Integer.BYTES;
+
+    private static final ThreadLocal<TestEventEncoder> ENCODER = ThreadLocal.withInitial(TestEventEncoder::new);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private ByteBuffer byteBuffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    private TestEventEncoder() {
+    }
+
+    /**
+     * @return encoder of the current thread
+     */
+    static TestEventEncoder get() {
+        return ENCODER.get();
+    }
+
+    ByteBuffer encode(TestEvent event) {
+        String message = event.getMessage();
+        return encode(event.getLevel(), event.getEpochNanos(), event.getThreadId(), event.getLoggerName(), message, 0, message.length());
+    }
+
+    /**
+     * Encode event record. Returned buffer is valid only until the next call on the same thread.
+     *
+     * @param level level name
+     * @param epochNanos event time in nanoseconds since the epoch
+     * @param threadId id of the logging thread
+     * @param loggerName logger name
+     * @param message text which contains the message
+     * @param messageStart index of the first message char
+     * @param messageEnd index after the last message char
+     * @return byte buffer ready to be read from position 0 to limit
+     */
+    ByteBuffer encode(String level, long epochNanos, long threadId, String loggerName, CharSequence message, int messageStart,
+            int messageEnd) {
+        String logger = loggerName == null ? "" : loggerName;
+        int maxChars = Math.max(Math.max(level.length(), logger.length()), messageEnd - messageStart);
+        if (chars.length < maxChars || chars.length > MAX_RETAINED_CAPACITY) {
+            chars = new char[Math.max(maxChars, INITIAL_CAPACITY)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        int requiredBytes = FIXED_FIELDS_SIZE
+                + (int) ((level.length() + logger.length() + messageEnd - messageStart) * encoder.maxBytesPerChar());
+        if (byteBuffer.capacity() < requiredBytes || byteBuffer.capacity() > MAX_RETAINED_CAPACITY) {
+            byteBuffer = ByteBuffer.allocate(Math.max(requiredBytes, INITIAL_CAPACITY));
+        }
+
+        byteBuffer.clear();
+        // record length is patched when all fields are written
+        byteBuffer.putInt(0)
+                .putLong(epochNanos)
+                .putLong(threadId);
+        putString(level, 0, level.length());
+        putString(logger, 0, logger.length());
+        putString(message, messageStart, messageEnd);
+        byteBuffer.putInt(0, byteBuffer.position() - Integer.BYTES);
+        byteBuffer.flip();
+        return byteBuffer;
+    }
+
+    private void putString(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (text instanceof String) {
+            ((String) text).getChars(start, end, chars, 0);
+        } else if (text instanceof StringBuilder) {
+            ((StringBuilder) text).getChars(start, end, chars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = text.charAt(start + i);
+            }
+        }
+        charBuffer.clear().limit(length);
+
+        int lengthPosition = byteBuffer.position();
+        byteBuffer.position(lengthPosition + Integer.BYTES);
+        encoder.reset();
+        if (encoder.encode(charBuffer, byteBuffer, true).isOverflow() || encoder.flush(byteBuffer).isOverflow()) {
+            // buffer is sized by max bytes per char, so it is not expected
+            throw new BufferOverflowException();
+        }
+        byteBuffer.putInt(lengthPosition, byteBuffer.position() - lengthPosition - Integer.BYTES);
+    }
+}
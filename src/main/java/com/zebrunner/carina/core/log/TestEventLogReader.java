@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of the structured test event log ({@value #EVENT_LOG_FILE_NAME}) written by {@link ThreadLogAppender}
+ * when {@code eventLog="true"}.<br>
+ * Records are read one by one without loading the whole file, incomplete record at the end of the file
+ * (test process was killed during the write) is treated as the end of the log.
+ */
+public final class TestEventLogReader implements Closeable {
+
+    public static final String EVENT_LOG_FILE_NAME = "test-events.bin";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream stream;
+    private byte[] record = new byte[512];
+
+    public TestEventLogReader(Path file) throws IOException {
+        this.stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * Read all events of the file
+     *
+     * @param file path to the event log
+     * @return list of {@link TestEvent}
+     * @throws IOException if file could not be read
+     */
+    public static List<TestEvent> readAll(Path file) throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        try (TestEventLogReader reader = new TestEventLogReader(file)) {
+            TestEvent event;
+            while ((event = reader.next()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * @return next event or null if there are no more complete events
+     * @throws IOException if file could not be read or it is corrupted
+     */
+    public TestEvent next() throws IOException {
+        int length;
+        try {
+            length = stream.readInt();
+            if (length < 0) {
+                throw new IOException("Corrupted event log: negative record length " + length);
+            }
+            if (record.length < length) {
+                record = new byte[length];
+            }
+            stream.readFully(record, 0, length);
+        } catch (EOFException e) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+        long epochNanos = buffer.getLong();
+        long threadId = buffer.getLong();
+        String level = getString(buffer);
+        String loggerName = getString(buffer);
+        String message = getString(buffer);
+        return new TestEvent(level, epochNanos, threadId, loggerName, message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
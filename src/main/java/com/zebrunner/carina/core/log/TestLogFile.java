@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/*
+ * Single test.log file shared by all threads which log into the same test directory.
+ * Implementations are thread-safe and enforce the file size limit with their own counter.
+ */
+interface TestLogFile {
+
+    /**
+     * Append encoded line.
+     *
+     * @param bytes buffer with the line from position to limit
+     * @return false if the file was already closed, so the caller should reopen it
+     * @throws IOException if write failed or file size limit is exceeded
+     */
+    boolean write(ByteBuffer bytes) throws IOException;
+
+    /**
+     * Make written lines visible for readers of the file.
+     *
+     * @throws IOException if flush failed
+     */
+    void flush() throws IOException;
+
+    void close() throws IOException;
+
+    boolean isClosed();
+
+    long getWrittenBytes();
+
+    static IOException sizeLimitExceeded(long newWrittenBytes) {
+        return new IOException("test Log file size exceeded core limit: " + newWrittenBytes + " > "
+                + ThreadLogAppender.MAX_LOG_FILE_SIZE_IN_MEGABYTES);
+    }
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+
+/*
+ * Open test.log files by test directory. All threads which log into the same test directory share the single file,
+ * so its size counter is exact without any global lookup.
+ * Files are closed and removed when the test is finished. Directories which are never closed explicitly
+ * (threads of the test which log after its end, configuration methods) are evicted in LRU order
+ * once the number of open files exceeds the limit; evicted file is transparently reopened in append mode on the next line.
+ * Uncompressed size of the evicted test.log.gz files is kept until they are reopened or the test is finished,
+ * so the size limit still applies to the reopened file.
+ */
+final class TestLogFileRegistry {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+    static final int DEFAULT_MAX_OPEN_FILES = 256;
+
+    private final ConcurrentMap<Path, OpenFile> files = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Path, Long> closedGzipSizes = new ConcurrentHashMap<>();
+    private final AtomicLong evictedFiles = new AtomicLong();
+    private final String fileName;
+    private volatile int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+
+    TestLogFileRegistry() {
+        this(null);
+    }
+
+    /**
+     * @param fileName name of the files in the test directories, null to use the name of the {@link TestLogFileType}
+     */
+    TestLogFileRegistry(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Get open test.log of the test directory, open it if there is no such file or it was closed by another thread.
+     *
+     * @param testDirectory test directory
+     * @param type {@link TestLogFileType}
+     * @param buffered keep written lines in memory until flush (used only by the stream files)
+     * @return {@link TestLogFile}
+     * @throws IOException if file could not be opened
+     */
+    TestLogFile acquire(Path testDirectory, TestLogFileType type, boolean buffered) throws IOException {
+        OpenFile openFile = files.get(testDirectory);
+        if (openFile != null && !openFile.file.isClosed()) {
+            openFile.lastAccess = System.nanoTime();
+            return openFile.file;
+        }
+        try {
+            openFile = files.compute(testDirectory, (directory, existing) -> {
+                if (existing != null && !existing.file.isClosed()) {
+                    return existing;
+                }
+                try {
+                    return new OpenFile(open(directory, type, buffered));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        openFile.lastAccess = System.nanoTime();
+        evictIfNeeded(testDirectory);
+        return openFile.file;
+    }
+
+    /**
+     * Close test.log of the test directory if it is open.
+     *
+     * @param testDirectory test directory
+     */
+    void close(Path testDirectory) {
+        OpenFile openFile = files.remove(testDirectory);
+        if (openFile != null) {
+            closeQuietly(testDirectory, openFile.file);
+        }
+        closedGzipSizes.remove(testDirectory);
+    }
+
+    /**
+     * Flush test.log of the test directory if it is open.
+     *
+     * @param testDirectory test directory
+     */
+    void flush(Path testDirectory) {
+        OpenFile openFile = files.get(testDirectory);
+        if (openFile != null) {
+            try {
+                openFile.file.flush();
+            } catch (IOException e) {
+                LOGGER.error("Unable to flush test log of " + testDirectory, e);
+            }
+        }
+    }
+
+    void closeAll() {
+        for (Path testDirectory : files.keySet()) {
+            close(testDirectory);
+        }
+    }
+
+    /**
+     * @return number of open test.log files
+     */
+    int size() {
+        return files.size();
+    }
+
+    /**
+     * @return number of files closed by LRU eviction instead of the test end
+     */
+    long getEvictedFiles() {
+        return evictedFiles.get();
+    }
+
+    void setMaxOpenFiles(int maxOpenFiles) {
+        this.maxOpenFiles = Math.max(1, maxOpenFiles);
+    }
+
+    private void evictIfNeeded(Path acquiredDirectory) {
+        while (files.size() > maxOpenFiles) {
+            Path eldestDirectory = null;
+            OpenFile eldest = null;
+            for (Map.Entry<Path, OpenFile> entry : files.entrySet()) {
+                if (!entry.getKey().equals(acquiredDirectory)
+                        && (eldest == null || entry.getValue().lastAccess - eldest.lastAccess < 0)) {
+                    eldestDirectory = entry.getKey();
+                    eldest = entry.getValue();
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            if (files.remove(eldestDirectory, eldest)) {
+                evictedFiles.incrementAndGet();
+                closeQuietly(eldestDirectory, eldest.file);
+                if (eldest.file instanceof GzipTestLogFile) {
+                    closedGzipSizes.merge(eldestDirectory, eldest.file.getWrittenBytes(), Math::max);
+                }
+            }
+        }
+    }
+
+    private TestLogFile open(Path testDirectory, TestLogFileType type, boolean buffered) throws IOException {
+        Path testLogFile = testDirectory.resolve(fileName != null ? fileName : type.getFileName());
+        switch (type) {
+        case MAPPED:
+            return new MappedTestLogFile(testLogFile);
+        case GZIP:
+            Long evictedSize = closedGzipSizes.remove(testDirectory);
+            return new GzipTestLogFile(testLogFile.toFile(), evictedSize != null ? evictedSize : 0L);
+        default:
+            return new StreamTestLogFile(testLogFile.toFile(), buffered);
+        }
+    }
+
+    private static void closeQuietly(Path testDirectory, TestLogFile file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            LOGGER.error("Unable to close test log of " + testDirectory, e);
+        }
+    }
+
+    private static final class OpenFile {
+        private final TestLogFile file;
+        private volatile long lastAccess;
+
+        private OpenFile(TestLogFile file) {
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+/**
+ * How {@link ThreadLogAppender} writes test.log files.
+ */
+public enum TestLogFileType {
+
+    /**
+     * Append lines through the regular file stream
+     */
+    STREAM("test.log"),
+
+    /**
+     * Copy lines into the memory-mapped region preallocated in chunks. The file has zero-filled tail while the test
+     * is running and is truncated to the real length on flush and close, so it is valid only after the test end
+     */
+    MAPPED("test.log"),
+
+    /**
+     * Compress lines on the fly into test.log.gz with periodic sync flushes
+     */
+    GZIP("test.log.gz");
+
+    private final String fileName;
+
+    TestLogFileType(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return name of the log file in the test directory
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    public static TestLogFileType parse(String value) {
+        try {
+            return TestLogFileType.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return STREAM;
+        }
+    }
+}
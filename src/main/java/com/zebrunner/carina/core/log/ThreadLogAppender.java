@@ -15,16 +15,9 @@
  *******************************************************************************/
 package com.zebrunner.carina.core.log;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.io.Serializable;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.Core;
@@ -38,8 +31,6 @@ import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginElement;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
 import org.apache.logging.log4j.core.layout.PatternLayout;
-import org.apache.logging.log4j.message.Message;
-import org.slf4j.MDC;
 
 import com.zebrunner.carina.utils.report.ReportContext;
 
@@ -53,14 +44,21 @@ import com.zebrunner.carina.utils.report.ReportContext;
 )
 public class ThreadLogAppender extends AbstractAppender {
 
-    private static final long MAX_LOG_FILE_SIZE_IN_MEGABYTES = (long) 1024 * 1024 * 1024;
-    private static final DateTimeFormatter LOG_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss");
+    static final long MAX_LOG_FILE_SIZE_IN_MEGABYTES = (long) 1024 * 1024 * 1024;
+    private static final int DEFAULT_ASYNC_BUFFER_SIZE = 8192;
 
-    private static final ThreadLocal<File> currentTestDirectory = new ThreadLocal<>();
-    // single buffer for each thread test.log file
-    private static final ThreadLocal<BufferedWriter> testLogBuffer = new ThreadLocal<>();
+    // last test directory of the thread, its test.log is closed when the test is finished
+    private static final ThreadLocal<Path> currentTestDirectory = new ThreadLocal<>();
 
-    private static final Map<String, Long> fileNameToWrittenBytes = new ConcurrentHashMap<>();
+    private static final TestLogFileRegistry testLogFiles = new TestLogFileRegistry();
+    private static volatile TestLogFileType testLogFileType = TestLogFileType.STREAM;
+    // structured events written next to test.log when eventLog="true"
+    private static final TestLogFileRegistry eventLogFiles = new TestLogFileRegistry(TestEventLogReader.EVENT_LOG_FILE_NAME);
+    private static volatile boolean eventLogEnabled = false;
+    private static volatile boolean shutdownHookRegistered = false;
+
+    // writer of the async mode, null when appender writes synchronously on the logging thread
+    private static volatile AsyncLogWriter asyncLogWriter = null;
 
     private ThreadLogAppender(String name,
                               Filter filter,
@@ -69,8 +67,35 @@ public class ThreadLogAppender extends AbstractAppender {
         super(name, filter, layout, ignoreExceptions, Property.EMPTY_ARRAY);
     }
 
+    /**
+     * Create appender.<br>
+     * Async mode is opt-in: {@code <ThreadLogAppender name="ThreadLogAppender" async="true" bufferSize="8192" overflowPolicy="BLOCK">}.
+     * In this mode log lines are published into a bounded ring buffer and written by the single background thread.<br>
+     * {@code fileType="MAPPED"} writes test.log through the memory-mapped region preallocated in chunks instead of the file stream,
+     * {@code fileType="GZIP"} writes compressed test.log.gz.<br>
+     * {@code maxOpenFiles} limits test.log files kept open at the same time, least recently used ones are closed above it.<br>
+     * {@code eventLog="true"} additionally records every event into the binary {@value TestEventLogReader#EVENT_LOG_FILE_NAME},
+     * see {@link TestEventLogReader}.
+     *
+     * @param name appender name
+     * @param async write test logs on the background thread
+     * @param bufferSize capacity of the async ring buffer, rounded up to the power of two
+     * @param overflowPolicy {@link OverflowPolicy} name used when the ring buffer is full
+     * @param fileType {@link TestLogFileType} name
+     * @param maxOpenFiles max number of open test.log files
+     * @param eventLog write structured event log next to test.log
+     * @param layout layout
+     * @param filter filter
+     * @return {@link ThreadLogAppender}
+     */
     @PluginFactory
     public static ThreadLogAppender create(@PluginAttribute("name") String name,
+                                           @PluginAttribute(value = "async", defaultBoolean = false) boolean async,
+                                           @PluginAttribute(value = "bufferSize", defaultInt = DEFAULT_ASYNC_BUFFER_SIZE) int bufferSize,
+                                           @PluginAttribute(value = "overflowPolicy", defaultString = "BLOCK") String overflowPolicy,
+                                           @PluginAttribute(value = "fileType", defaultString = "STREAM") String fileType,
+                                           @PluginAttribute(value = "maxOpenFiles", defaultInt = TestLogFileRegistry.DEFAULT_MAX_OPEN_FILES) int maxOpenFiles,
+                                           @PluginAttribute(value = "eventLog", defaultBoolean = false) boolean eventLog,
                                            @PluginElement("Layout") Layout<? extends Serializable> layout,
                                            @PluginElement("Filter") Filter filter) {
 
@@ -83,9 +108,51 @@ public class ThreadLogAppender extends AbstractAppender {
             layout = PatternLayout.createDefaultLayout();
         }
 
+        testLogFileType = TestLogFileType.parse(fileType);
+        testLogFiles.setMaxOpenFiles(maxOpenFiles);
+        eventLogFiles.setMaxOpenFiles(maxOpenFiles);
+        eventLogEnabled = eventLog;
+        if (async && asyncLogWriter == null) {
+            // appender could be recreated on log4j reconfiguration, the writer thread is shared by all instances
+            asyncLogWriter = new AsyncLogWriter(bufferSize, OverflowPolicy.parse(overflowPolicy), testLogFiles, testLogFileType,
+                    eventLog ? eventLogFiles : null);
+        } else if (!async) {
+            registerShutdownHook();
+        }
+
         return new ThreadLogAppender(name, filter, layout, true);
     }
 
+    /**
+     * Flush barrier: in the async mode blocks until all log lines produced so far are written to their test.log files.
+     * When the appender writes synchronously only test.log of the current thread's test is flushed (it matters for test.log.gz).
+     */
+    public static void flush() {
+        AsyncLogWriter writer = asyncLogWriter;
+        if (writer != null) {
+            writer.flush();
+            return;
+        }
+        Path testDirectory = currentTestDirectory.get();
+        if (testDirectory != null) {
+            testLogFiles.flush(testDirectory);
+        }
+    }
+
+    /**
+     * @return number of test.log files open at the moment
+     */
+    public static int getOpenLogFilesCount() {
+        return testLogFiles.size();
+    }
+
+    /**
+     * @return number of test.log files closed because of the open files limit instead of the test end
+     */
+    public static long getEvictedLogFilesCount() {
+        return testLogFiles.getEvictedFiles();
+    }
+
     @Override
     public void append(LogEvent event) {
         // TODO: [VD] OBLIGATORY double check and create separate unit test for this case
@@ -97,70 +164,74 @@ public class ThreadLogAppender extends AbstractAppender {
          */
 
         try {
-            BufferedWriter logFileWriter = testLogBuffer.get();
-
-            // check does writer log to the correct test directory, if not - reinit it
-            if (currentTestDirectory.get() != ReportContext.getTestDir()) {
-                logFileWriter = null;
+            Path testDirectory = ReportContext.getTestDirectory();
+            LogLineFormatter formatter = LogLineFormatter.get();
+            StringBuilder logLine = formatter.format(event);
+
+            AsyncLogWriter writer = asyncLogWriter;
+            if (writer != null) {
+                currentTestDirectory.set(testDirectory);
+                TestEvent testEvent = eventLogEnabled
+                        ? new TestEvent(event.getLevel().name(), getEpochNanos(event), formatter.getThreadId(), event.getLoggerName(),
+                                logLine.substring(formatter.getMessageStart(), logLine.length() - 1))
+                        : null;
+                writer.enqueue(testDirectory, event.getLevel(), logLine.toString(), testEvent);
+                return;
             }
 
-            String logFilePath = ReportContext.getTestDir() + "/test.log";
-            if (logFileWriter == null) {
-                // 1st request to log something for this thread/test
-                File testLogFile = new File(logFilePath);
-                currentTestDirectory.set(ReportContext.getTestDir());
-
-                if (!testLogFile.exists()) {
-                    testLogFile.createNewFile();
-                }
+            if (!testDirectory.equals(currentTestDirectory.get())) {
+                currentTestDirectory.set(testDirectory);
+            }
 
-                logFileWriter = new BufferedWriter(new FileWriter(testLogFile, true));
-                testLogBuffer.set(logFileWriter);
+            // file is not cached by the thread, so closed or evicted files are not retained after the test end
+            TestLogFile testLogFile = testLogFiles.acquire(testDirectory, testLogFileType, false);
 
-                fileNameToWrittenBytes.putIfAbsent(logFilePath, 0L);
+            // unbuffered stream or mapped region: the whole line goes to the file with the single write
+            ByteBuffer bytes = formatter.encode();
+            if (!testLogFile.write(bytes)) {
+                // file was closed by another thread which finished the same test directory
+                testLogFiles.acquire(testDirectory, testLogFileType, false).write(bytes);
             }
 
-            String logLine = this.toLogLine(event);
-            long newWrittenBytes = fileNameToWrittenBytes.get(logFilePath) + logLine.length();
-            if (newWrittenBytes > MAX_LOG_FILE_SIZE_IN_MEGABYTES) {
-                throw new IOException("test Log file size exceeded core limit: " + newWrittenBytes + " > " + MAX_LOG_FILE_SIZE_IN_MEGABYTES);
+            if (eventLogEnabled) {
+                ByteBuffer record = TestEventEncoder.get().encode(event.getLevel().name(), getEpochNanos(event), formatter.getThreadId(),
+                        event.getLoggerName(), logLine, formatter.getMessageStart(), logLine.length() - 1);
+                if (!eventLogFiles.acquire(testDirectory, TestLogFileType.STREAM, false).write(record)) {
+                    eventLogFiles.acquire(testDirectory, TestLogFileType.STREAM, false).write(record);
+                }
             }
-
-            logFileWriter.write(logLine);
-            logFileWriter.flush();
-
-            fileNameToWrittenBytes.computeIfPresent(logFilePath, ($, bytesWritten) -> bytesWritten + logLine.length());
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private String toLogLine(LogEvent event) {
-        String logTime = LocalDateTime.ofEpochSecond(event.getInstant().getEpochSecond(),
-                                                     event.getInstant().getNanoOfSecond(),
-                                                     ZoneOffset.UTC)
-                                      .format(LOG_TIME_FORMATTER);
-
-        long threadId = Thread.currentThread().getId();
-        MDC.put("threadId", "-" + threadId);
-        String logLevel = event.getLevel().toString();
-
-        Message eventMessage = event.getMessage();
-        String logMessage = eventMessage != null
-                ? eventMessage.getFormattedMessage()
-                : "";
+    private static synchronized void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            // mapped files keep preallocated tail until closed, so files of unfinished tests are closed on exit
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                testLogFiles.closeAll();
+                eventLogFiles.closeAll();
+            }, "carina-test-log-shutdown"));
+            shutdownHookRegistered = true;
+        }
+    }
 
-        return "[" + logTime + "] " + "[" + threadId + "] " + "[" + logLevel + "] " + logMessage + "\n";
+    private static long getEpochNanos(LogEvent event) {
+        return event.getInstant().getEpochSecond() * 1_000_000_000L + event.getInstant().getNanoOfSecond();
     }
 
     @Override
     public void stop() {
         try {
-            BufferedWriter fw = testLogBuffer.get();
-            if (fw != null) {
-                fw.close();
-                testLogBuffer.remove();
+            AsyncLogWriter writer = asyncLogWriter;
+            Path testDirectory = currentTestDirectory.get();
+            if (writer != null && testDirectory != null) {
+                writer.close(testDirectory);
+            } else if (testDirectory != null) {
+                testLogFiles.close(testDirectory);
+                eventLogFiles.close(testDirectory);
             }
+            currentTestDirectory.remove();
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
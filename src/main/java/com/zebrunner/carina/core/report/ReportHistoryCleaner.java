@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retention of the report history: artifacts directories of the previous runs in the project report directory.<br>
+ * Expired directories are renamed into the trash directory right away and deleted in parallel by the low-priority
+ * background threads, so the cleanup does not delay the test start. Directories left in the trash by the interrupted
+ * cleanup are deleted by the next one.
+ */
+public final class ReportHistoryCleaner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String TRASH_DIRECTORY_NAME = ".trash";
+    private static final String GALLERY_LIB_DIRECTORY_NAME = "gallery-lib";
+    private static final int DELETE_THREADS = 2;
+    private static final AtomicInteger TRASH_COUNTER = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final Path reportDirectory;
+    private final Path trashDirectory;
+    private final int maxHistory;
+    private final long maxBytes;
+    private final Duration maxAge;
+
+    /**
+     * @param reportDirectory project report directory
+     * @param maxHistory max number of the kept runs including the current one, 0 or less to keep all
+     * @param maxBytes max total size of the kept runs in bytes, 0 or less for no limit
+     * @param maxAge max age of the kept runs, zero or negative for no limit
+     */
+    public ReportHistoryCleaner(Path reportDirectory, int maxHistory, long maxBytes, Duration maxAge) {
+        this.reportDirectory = reportDirectory;
+        this.trashDirectory = reportDirectory.resolve(TRASH_DIRECTORY_NAME);
+        this.maxHistory = maxHistory;
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Move directories expired by number and age into the trash and start background deletion.
+     * Retention by size requires the directories walk, so it is done in background too.
+     *
+     * @return future completed when the trash is empty
+     */
+    public CompletableFuture<Void> clean() {
+        List<Path> runDirectories;
+        try {
+            runDirectories = listRunDirectories();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to list report history directory: {}", reportDirectory, e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<Path> kept = new ArrayList<>();
+        Instant oldestAllowed = maxAge.isZero() || maxAge.isNegative() ? null : Instant.now().minus(maxAge);
+        for (int i = 0; i < runDirectories.size(); i++) {
+            Path directory = runDirectories.get(i);
+            // one place is reserved for the current run
+            boolean expiredByNumber = maxHistory > 0 && i >= maxHistory - 1;
+            if (expiredByNumber || (oldestAllowed != null && isOlderThan(directory, oldestAllowed))) {
+                moveToTrash(directory);
+            } else {
+                kept.add(directory);
+            }
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            if (maxBytes > 0) {
+                removeExceedingSize(kept);
+            }
+        }, EXECUTOR).thenCompose(ignored -> emptyTrash());
+    }
+
+    private List<Path> listRunDirectories() throws IOException {
+        try (Stream<Path> files = Files.list(reportDirectory)) {
+            return files.filter(Files::isDirectory)
+                    .filter(directory -> !directory.getFileName().toString().startsWith("."))
+                    .filter(directory -> !GALLERY_LIB_DIRECTORY_NAME.equals(directory.getFileName().toString()))
+                    // newest first, directory names are timestamps of the runs
+                    .sorted(Comparator.comparing((Path directory) -> directory.getFileName().toString()).reversed())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void removeExceedingSize(List<Path> runDirectories) {
+        long totalBytes = 0;
+        for (Path directory : runDirectories) {
+            if (totalBytes <= maxBytes) {
+                totalBytes += FileUtils.sizeOfDirectoryAsBigInteger(directory.toFile()).longValue();
+            }
+            if (totalBytes > maxBytes) {
+                moveToTrash(directory);
+            }
+        }
+    }
+
+    private CompletableFuture<Void> emptyTrash() {
+        if (!Files.isDirectory(trashDirectory)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<Path> trash;
+        try (Stream<Path> files = Files.list(trashDirectory)) {
+            trash = files.collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.warn("Unable to list report history trash: {}", trashDirectory, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(trash.stream()
+                .map(directory -> CompletableFuture.runAsync(() -> delete(directory), EXECUTOR))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    private void moveToTrash(Path directory) {
+        try {
+            Files.createDirectories(trashDirectory);
+            Path target = trashDirectory.resolve(directory.getFileName() + "-" + System.currentTimeMillis() + "-"
+                    + TRASH_COUNTER.incrementAndGet());
+            Files.move(directory, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // rename is not possible (e.g. opened files on Windows), so the directory is deleted in place
+            LOGGER.debug("Unable to move report directory into the trash: {}", directory, e);
+            CompletableFuture.runAsync(() -> delete(directory), EXECUTOR);
+        }
+    }
+
+    private static boolean isOlderThan(Path directory, Instant instant) {
+        try {
+            return Files.getLastModifiedTime(directory).toInstant().isBefore(instant);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void delete(Path directory) {
+        try {
+            FileUtils.deleteDirectory(directory.toFile());
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete old report directory: {}", directory, e);
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DELETE_THREADS, DELETE_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "carina-report-cleaner");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.concurrent.ConcurrentException;
+import org.apache.commons.lang3.concurrent.LazyInitializer;
+
+import com.zebrunner.carina.core.config.ReportConfiguration;
+import com.zebrunner.carina.utils.config.Configuration;
+import com.zebrunner.carina.utils.report.ReportContext;
+
+/**
+ * Content-addressed storage of the screenshots of the run.<br>
+ * Every image is stored once under the name of its SHA-256 hash in the {@value #STORE_DIRECTORY_NAME} directory
+ * of the report directory, test galleries reference the stored files, so identical screenshots
+ * (e.g. consecutive waits on the same page) take the disk space once.
+ */
+public final class ScreenshotStore {
+
+    public static final String STORE_DIRECTORY_NAME = "screenshot-store";
+    private static final String IMAGE_EXTENSION = ".png";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final LazyInitializer<ScreenshotStore> RUN_STORE = new LazyInitializer<>() {
+        @Override
+        protected ScreenshotStore initialize() {
+            return new ScreenshotStore(ReportContext.getBaseDirectory().resolve(STORE_DIRECTORY_NAME));
+        }
+    };
+
+    private final Path directory;
+    private final Set<String> storedNames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param directory directory of the store
+     */
+    public ScreenshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Get store of the current run
+     *
+     * @return store if enabled by the {@link ReportConfiguration.Parameter#SCREENSHOT_STORE}, empty otherwise
+     */
+    public static Optional<ScreenshotStore> current() {
+        if (!Configuration.get(ReportConfiguration.Parameter.SCREENSHOT_STORE, Boolean.class).orElse(false)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(RUN_STORE.get());
+        } catch (ConcurrentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get path of the image in the store. Image is not written by this method.
+     *
+     * @param image png image bytes
+     * @return path of the stored image
+     */
+    public Path resolve(byte[] image) {
+        return directory.resolve(hash(image) + IMAGE_EXTENSION);
+    }
+
+    /**
+     * Write image into the store if the same image is not stored yet
+     *
+     * @param image png image bytes
+     * @return path of the stored image
+     * @throws IOException if the image cannot be written
+     */
+    public Path put(byte[] image) throws IOException {
+        Path file = resolve(image);
+        if (storedNames.contains(file.getFileName().toString())) {
+            return file;
+        }
+        Files.createDirectories(directory);
+        try {
+            Files.write(file, image, StandardOpenOption.CREATE_NEW);
+        } catch (FileAlreadyExistsException e) {
+            // written by another thread
+        }
+        storedNames.add(file.getFileName().toString());
+        return file;
+    }
+
+    /**
+     * Move image file into the store. The file is removed when the same image is already stored.
+     *
+     * @param file png image file
+     * @return path of the stored image
+     * @throws IOException if the image cannot be read or moved
+     */
+    public Path move(Path file) throws IOException {
+        Path stored = resolve(Files.readAllBytes(file));
+        String name = stored.getFileName().toString();
+        if (storedNames.add(name)) {
+            Files.createDirectories(directory);
+            try {
+                Files.move(file, stored, StandardCopyOption.ATOMIC_MOVE);
+                return stored;
+            } catch (IOException e) {
+                if (!Files.exists(stored)) {
+                    storedNames.remove(name);
+                    throw e;
+                }
+            }
+        }
+        Files.delete(file);
+        return stored;
+    }
+
+    private static String hash(byte[] image) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        byte[] bytes = digest.digest(image);
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zebrunner.carina.core.log.TestEventLogReader;
+import com.zebrunner.carina.core.log.TestLogFileType;
+import com.zebrunner.carina.utils.report.ReportContext;
+
+/**
+ * In-memory list of the images of the test directory used for the test gallery (report.html) and screenshots link.<br>
+ * Screenshots captured by carina-core are added to the manifest directly. Files written by the code that does not know
+ * about the manifest (e.g. Screenshot of carina-webdriver) are merged by the directory listing, which is repeated only
+ * when the modification time of the test directory changes. Modification time close to the listing is not trusted:
+ * on the file systems with coarse timestamps the file created right after the listing keeps the same time.
+ */
+public final class TestArtifactManifest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String TEST_REPORT_FILE_NAME = "report.html";
+    private static final Set<String> NON_IMAGE_FILE_NAMES = Stream.concat(
+            Stream.of(TestLogFileType.values()).map(TestLogFileType::getFileName),
+            Stream.of(TestEventLogReader.EVENT_LOG_FILE_NAME, "sql.log", TEST_REPORT_FILE_NAME))
+            .collect(Collectors.toUnmodifiableSet());
+    private static final Map<Path, TestArtifactManifest> MANIFESTS = new ConcurrentHashMap<>();
+    // the coarsest modification time resolution of the common file systems (FAT), NFS and HFS+ are within it
+    private static final long MODIFIED_TIME_GRANULARITY_MILLIS = 2000;
+
+    private final Path testDirectory;
+    // kept sorted, so the gallery is rendered without sorting
+    private final NavigableSet<String> images = new ConcurrentSkipListSet<>();
+    private volatile FileTime listedModifiedTime = null;
+
+    private TestArtifactManifest(Path testDirectory) {
+        this.testDirectory = testDirectory;
+    }
+
+    /**
+     * Get manifest of the test directory
+     *
+     * @param testDirectory test directory
+     * @return manifest
+     */
+    public static TestArtifactManifest get(Path testDirectory) {
+        return MANIFESTS.computeIfAbsent(testDirectory.toAbsolutePath().normalize(), TestArtifactManifest::new);
+    }
+
+    /**
+     * Get manifest of the test directory of the current thread. The lookup does not register new manifest, so tests
+     * which are not finished by {@link #remove(Path)} (e.g. skipped ones) do not leave it in memory.
+     *
+     * @return registered manifest or the new unregistered one if the test does not have it
+     */
+    public static TestArtifactManifest current() {
+        Path directory = ReportContext.getTestDirectory().toAbsolutePath().normalize();
+        TestArtifactManifest manifest = MANIFESTS.get(directory);
+        return manifest != null ? manifest : new TestArtifactManifest(directory);
+    }
+
+    /**
+     * Remove manifest of the finished test
+     *
+     * @param testDirectory test directory
+     * @return removed manifest or new one if the test did not have it
+     */
+    public static TestArtifactManifest remove(Path testDirectory) {
+        Path directory = testDirectory.toAbsolutePath().normalize();
+        TestArtifactManifest manifest = MANIFESTS.remove(directory);
+        return manifest != null ? manifest : new TestArtifactManifest(directory);
+    }
+
+    /**
+     * Register image of the test. Logs and other non-image files are ignored.
+     *
+     * @param file file in the test directory or in the {@link ScreenshotStore}, may be not written yet
+     */
+    public void add(Path file) {
+        if (!NON_IMAGE_FILE_NAMES.contains(file.getFileName().toString())) {
+            images.add(reference(file));
+        }
+    }
+
+    /**
+     * @return sorted references of the images of the test: names of the files in the test directory or paths
+     *         relative to it for the stored ones
+     */
+    public List<String> getImages() {
+        sync();
+        return new ArrayList<>(images);
+    }
+
+    /**
+     * @return true if the test has at least one png screenshot
+     */
+    public boolean hasScreenshots() {
+        sync();
+        return images.stream().anyMatch(name -> name.endsWith(".png"));
+    }
+
+    private String reference(Path file) {
+        return FilenameUtils.separatorsToUnix(testDirectory.relativize(file.toAbsolutePath().normalize()).toString());
+    }
+
+    private void sync() {
+        FileTime modifiedTime;
+        try {
+            modifiedTime = Files.getLastModifiedTime(testDirectory);
+        } catch (IOException e) {
+            // directory is not created yet
+            return;
+        }
+        if (modifiedTime.equals(listedModifiedTime)) {
+            return;
+        }
+        long listingStart = System.currentTimeMillis();
+        try (Stream<Path> files = Files.list(testDirectory)) {
+            files.filter(Files::isRegularFile).forEach(this::add);
+            // file written in the same timestamp tick after the listing would not change the modification time
+            listedModifiedTime = listingStart - modifiedTime.toMillis() > MODIFIED_TIME_GRANULARITY_MILLIS ? modifiedTime : null;
+        } catch (IOException e) {
+            LOGGER.error("Exception during test directory scanning", e);
+        }
+    }
+}
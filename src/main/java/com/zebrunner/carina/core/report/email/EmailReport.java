@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Emailable report which is written directly to the destination without building it in memory.
+ */
+@FunctionalInterface
+public interface EmailReport {
+
+    /**
+     * Write report html.
+     *
+     * @param writer destination of the report html
+     * @throws IOException if report could not be written
+     */
+    void write(Writer writer) throws IOException;
+}
@@ -16,8 +16,13 @@
 package com.zebrunner.carina.core.report.email;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.Map;
 
 import com.zebrunner.carina.core.config.ReportConfiguration;
 import org.apache.commons.collections.CollectionUtils;
@@ -37,234 +42,219 @@ import com.zebrunner.carina.utils.report.TestResultType;
  * 
  * @author Alex Khursevich
  */
-public class EmailReportGenerator {
+public class EmailReportGenerator implements EmailReport {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    //todo move all html to the email-report.html file and read it
-    private static final String CONTAINER = "<div id='container' style='width: 98%; padding: 10px; margin: 0; background: #EBEBE0; color: #717171; "
-            + "font-family: Calibri;'><div id='summary'><h2 align='center' style='background-color: gray; color: white; padding: 10px; margin: 0;'>"
-            + "${title}</h2><br><h2 style='clear: both; margin: 0;'>Summary:</h2><hr/><table style='width: 1000px;'><tr><td style='width: 100px;'>"
-            + "Environment:</td><td>${env}</td></tr><tr><td>Version:</td><td>${version}</td></tr><tr><td>Browser:</td><td>${browser}</td></tr><tr>"
-            + "<td>Finished:</td><td>${finish_date}</td></tr><tr class='pass' style='color: #66C266;'><td>Passed: </td><td>${pass_count}</td></tr>"
-            + "<tr class='fail' style='color: #FF5C33;'><td>Failed:</td><td>${fail_count}</td></tr><tr class='skip' style='color: #FFD700;'>"
-            + "<td>Skipped:</td><td>${skip_count}</td></tr><tr><td>Success rate:</td><td>${pass_rate}%</td></tr></table></div><br>${cucumber_results}"
-            + "<br><div id='results'><h2 style='margin: 0;'>Test results:</h2><hr/><table cellspacing='0' cellpadding='0' style='width: 100%;'><tr>"
-            + "<th width='10%' align='center'>Result</th><th width='75%'>Test name</th><th width='10%'>Test files</th></tr>${result_rows}</table>"
-            + "</div>${created_items_list}</div>\n";
-    private static final String PACKAGE_TR = "<tr><td colspan='4' class='package' style='background: gray; border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'>${package_name}</td></tr>\n";
-    private static final String PASS_TEST_LOG_DEMO_TR = "<tr class='pass' style='background: #66C266;'><td align='center' style='border-style: solid;"
-            + " border-width: 1px; border-color: white; padding: 5px; color: white;'>PASSED</td><td style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'>${test_name}</td><td align='center' style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' style='color: white;'>Logs</a><span> | </span>"
-            + "<a target='_blank' href='${screenshots_url}' style='color: white;'>Slides</a></td></tr>\n";
-    private static final String FAIL_TEST_LOG_DEMO_TR = "<tr class='fail' style='background: #FF5C33;'><td align='center' style='border-style: solid;"
-            + " border-width: 1px; border-color: white; padding: 5px; color: white;'>FAILED</td><td style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'><span>${test_name}</span><div style=\"background:#ffcccc; color: black; padding: "
-            + "5px; margin: 2px 0px 2px 0px;\">${fail_reason}</div></td><td align='center' style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' style='color: white;'>Logs</a><span> | "
-            + "</span><a target='_blank' href='${screenshots_url}' style='color: white;'>Slides</a></td></tr>\n";
-    private static final String SKIP_TEST_LOG_DEMO_TR = "<tr class='skip' style='background: #DEB887;'><td align='center' style='border-style: solid;"
-            + " border-width: 1px; border-color: white; padding: 5px; color: white;'>SKIPPED</td><td style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'><span>${test_name}</span><div style=\"background:#FFE4B5; color: black; padding: 5px;"
-            + " margin: 2px 0px 2px 0px;\">${skip_reason}</div></td><td align='center' style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' style='color: white;'>Logs</a><span> | "
-            + "</span><a target='_blank' href='${screenshots_url}' style='color: white;'>Slides</a></td></tr>\n";
-    private static final String FAIL_CONFIG_LOG_DEMO_TR = "<tr class='fail' style='background: #009999;'><td align='center' style='border-style: "
-            + "solid; border-width: 1px; border-color: white; padding: 5px; color: white;'>SYSTEM ISSUE</td><td style='border-style: solid; "
-            + "border-width: 1px; border-color: white; padding: 5px; color: white;'><span>${test_name}</span><div style=\"background:#5ccccc; "
-            + "color: black; padding: 5px; margin: 2px 0px 2px 0px;\">${fail_config_reason}</div></td><td align='center' style='border-style: "
-            + "solid; border-width: 1px; border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' style='color: "
-            + "white;'>Logs</a><span> | </span><a target='_blank' href='${screenshots_url}' style='color: white;'>Slides</a></td></tr>\n";
-    private static final String PASS_TEST_LOG_TR = "<tr class='pass' style='background: #66C266;'><td align='center' style='border-style:"
-            + " solid; border-width: 1px; border-color: white; padding: 5px; color: white;'>PASSED</td><td style='border-style: solid; border-width:"
-            + " 1px; border-color: white; padding: 5px; color: white;'>${test_name}</td><td align='center' style='border-style: solid; border-width:"
-            + " 1px; border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' style='color: white;'>Logs</a></td></tr>\n";
-    private static final String FAIL_TEST_LOG_TR = "<tr class='fail' style='background: #FF5C33;'><td align='center' "
-            + "style='border-style: solid; border-width: 1px; border-color: white; padding: 5px; color: white;'>FAILED</td><td style='border-style: "
-            + "solid; border-width: 1px; border-color: white; padding: 5px; color: white;'><span>${test_name}</span><div style=\"background:#ffcccc; "
-            + "color: black; padding: 5px; margin: 2px 0px 2px 0px;\">${fail_reason}</div></td><td align='center' style='border-style: solid; "
-            + "border-width: 1px; border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' style='color: white;'>"
-            + "Logs</a></td></tr>\n";
-    private static final String SKIP_TEST_LOG_TR = "<tr class='skip' style='background: #DEB887;'><td align='center' style='border-style: solid; "
-            + "border-width: 1px; border-color: white; padding: 5px; color: white;'>SKIPPED</td><td style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'><span>${test_name}</span><div style=\"background:#FFE4B5; color: black; padding: "
-            + "5px; margin: 2px 0px 2px 0px;\">${skip_reason}</div></td><td align='center' style='border-style: solid; border-width: 1px; "
-            + "border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' style='color: white;'>Logs</a></td></tr>\n";
-    private static final String FAIL_CONFIG_LOG_TR = "<tr class='fail' style='background: #009999;'><td align='center' "
-            + "style='border-style: solid; border-width: 1px; border-color: white; padding: 5px; color: white;'>SYSTEM ISSUE</td><td style='"
-            + "border-style: solid; border-width: 1px; border-color: white; padding: 5px; color: white;'><span>${test_name}</span><div style="
-            + "\"background:#5ccccc; color: black; padding: 5px; margin: 2px 0px 2px 0px;\">${fail_config_reason}</div></td><td align='center' "
-            + "style='border-style: solid; border-width: 1px; border-color: white; padding: 5px; color: white;'><a target='_blank' href='${log_url}' "
-            + "style='color: white;'>Logs</a></td></tr>\n";
-    private static final String CREATED_ITEMS_LIST = "<div><h3>Created items:</h3><ul>${created_items_list}</ul></div>";
-    private static final String CREATED_ITEM = "<li>${created_item}</li>";
-    private static final String TITLE_PLACEHOLDER = "${title}";
-    private static final String ENV_PLACEHOLDER = "${env}";
-    private static final String BROWSER_PLACEHOLDER = "${browser}";
-    private static final String VERSION_PLACEHOLDER = "${version}";
-    private static final String FINISH_DATE_PLACEHOLDER = "${finish_date}";
-    private static final String PASS_COUNT_PLACEHOLDER = "${pass_count}";
-    private static final String FAIL_COUNT_PLACEHOLDER = "${fail_count}";
-    private static final String SKIP_COUNT_PLACEHOLDER = "${skip_count}";
-    private static final String PASS_RATE_PLACEHOLDER = "${pass_rate}";
-    private static final String RESULTS_PLACEHOLDER = "${result_rows}";
-    private static final String PACKAGE_NAME_PLACEHOLDER = "${package_name}";
-    private static final String TEST_NAME_PLACEHOLDER = "${test_name}";
-    private static final String FAIL_REASON_PLACEHOLDER = "${fail_reason}";
-    private static final String SKIP_REASON_PLACEHOLDER = "${skip_reason}";
-    private static final String FAIL_CONFIG_REASON_PLACEHOLDER = "${fail_config_reason}";
-    private static final String SCREENSHOTS_URL_PLACEHOLDER = "${screenshots_url}";
-    private static final String LOG_URL_PLACEHOLDER = "${log_url}";
-    private static final String CREATED_ITEMS_LIST_PLACEHOLDER = "${created_items_list}";
-    private static final String CREATED_ITEM_PLACEHOLDER = "${created_item}";
-    private static final int MESSAGE_LIMIT = 2048;
-
+    private static final String TEMPLATES_RESOURCE = "email-report.html";
+
+    // slots of the templates, index of the name is the index of the value
+    private static final List<String> SLOT_NAMES = List.of("title", "env", "version", "browser", "finish_date", "pass_count",
+            "fail_count", "skip_count", "pass_rate", "result_rows", "package_name", "test_name", "fail_reason", "skip_reason",
+            "fail_config_reason", "screenshots_url", "log_url", "created_items_list", "created_item", "cucumber_results");
+    private static final int TITLE_SLOT = SLOT_NAMES.indexOf("title");
+    private static final int ENV_SLOT = SLOT_NAMES.indexOf("env");
+    private static final int VERSION_SLOT = SLOT_NAMES.indexOf("version");
+    private static final int BROWSER_SLOT = SLOT_NAMES.indexOf("browser");
+    private static final int FINISH_DATE_SLOT = SLOT_NAMES.indexOf("finish_date");
+    private static final int PASS_COUNT_SLOT = SLOT_NAMES.indexOf("pass_count");
+    private static final int FAIL_COUNT_SLOT = SLOT_NAMES.indexOf("fail_count");
+    private static final int SKIP_COUNT_SLOT = SLOT_NAMES.indexOf("skip_count");
+    private static final int PASS_RATE_SLOT = SLOT_NAMES.indexOf("pass_rate");
+    private static final int RESULTS_SLOT = SLOT_NAMES.indexOf("result_rows");
+    private static final int PACKAGE_NAME_SLOT = SLOT_NAMES.indexOf("package_name");
+    private static final int TEST_NAME_SLOT = SLOT_NAMES.indexOf("test_name");
+    private static final int FAIL_REASON_SLOT = SLOT_NAMES.indexOf("fail_reason");
+    private static final int SKIP_REASON_SLOT = SLOT_NAMES.indexOf("skip_reason");
+    private static final int FAIL_CONFIG_REASON_SLOT = SLOT_NAMES.indexOf("fail_config_reason");
+    private static final int SCREENSHOTS_URL_SLOT = SLOT_NAMES.indexOf("screenshots_url");
+    private static final int LOG_URL_SLOT = SLOT_NAMES.indexOf("log_url");
+    private static final int CREATED_ITEMS_LIST_SLOT = SLOT_NAMES.indexOf("created_items_list");
+    private static final int CREATED_ITEM_SLOT = SLOT_NAMES.indexOf("created_item");
     // Cucumber section
-    private static final String CUCUMBER_RESULTS_PLACEHOLDER = "${cucumber_results}";
+    private static final int CUCUMBER_RESULTS_SLOT = SLOT_NAMES.indexOf("cucumber_results");
+
+    private static final Map<String, String> TEMPLATES = HtmlTemplate.load(TEMPLATES_RESOURCE);
+    private static final HtmlTemplate CONTAINER = compile("container");
+    // container is written around the result rows, so the rows are streamed without building the whole report
+    private static final HtmlTemplate CONTAINER_HEAD = CONTAINER.before(RESULTS_SLOT);
+    private static final HtmlTemplate CONTAINER_TAIL = CONTAINER.after(RESULTS_SLOT);
+    private static final HtmlTemplate PACKAGE_TR = compile("package_row");
+    private static final HtmlTemplate PASS_TEST_LOG_DEMO_TR = compile("pass_row_with_slides");
+    private static final HtmlTemplate FAIL_TEST_LOG_DEMO_TR = compile("fail_row_with_slides");
+    private static final HtmlTemplate SKIP_TEST_LOG_DEMO_TR = compile("skip_row_with_slides");
+    private static final HtmlTemplate FAIL_CONFIG_LOG_DEMO_TR = compile("fail_config_row_with_slides");
+    private static final HtmlTemplate PASS_TEST_LOG_TR = compile("pass_row");
+    private static final HtmlTemplate FAIL_TEST_LOG_TR = compile("fail_row");
+    private static final HtmlTemplate SKIP_TEST_LOG_TR = compile("skip_row");
+    private static final HtmlTemplate FAIL_CONFIG_LOG_TR = compile("fail_config_row");
+    private static final HtmlTemplate CREATED_ITEMS_LIST = compile("created_items");
+    private static final HtmlTemplate CREATED_ITEM = compile("created_item");
+    private static final int MESSAGE_LIMIT = 2048;
 
     private static final boolean INCLUDE_PASS = true;
     private static final boolean INCLUDE_FAIL = true;
     private static final boolean INCLUDE_SKIP = true;
 
-    private String emailBody = CONTAINER;
-    private StringBuilder testResults = null;
-
-    private int passCount = 0;
-    private int failCount = 0;
-    private int skipCount = 0;
+    private final String title;
+    private final String url;
+    private final String version;
+    private final String browser;
+    private final String finishDate;
+    private final List<TestResultItem> testResultItems;
+    private final List<String> createdItems;
+    private final ResultCounters counters = new ResultCounters();
 
     public EmailReportGenerator(String title, String url, String version, String browser, String finishDate,
             List<TestResultItem> testResultItems, List<String> createdItems) {
-        emailBody = emailBody.replace(TITLE_PLACEHOLDER, title);
-        emailBody = emailBody.replace(ENV_PLACEHOLDER, url);
-        emailBody = emailBody.replace(VERSION_PLACEHOLDER, version);
-        emailBody = emailBody.replace(BROWSER_PLACEHOLDER, browser);
-        emailBody = emailBody.replace(FINISH_DATE_PLACEHOLDER, finishDate);
-        emailBody = emailBody.replace(RESULTS_PLACEHOLDER, getTestResultsList(testResultItems));
-        emailBody = emailBody.replace(PASS_COUNT_PLACEHOLDER, String.valueOf(passCount));
-        emailBody = emailBody.replace(FAIL_COUNT_PLACEHOLDER, String.valueOf(failCount));
-        emailBody = emailBody.replace(SKIP_COUNT_PLACEHOLDER, String.valueOf(skipCount));
-        emailBody = emailBody.replace(PASS_RATE_PLACEHOLDER, String.valueOf(getSuccessRate()));
-        emailBody = emailBody.replace(CREATED_ITEMS_LIST_PLACEHOLDER, getCreatedItemsList(createdItems));
-
-        // Cucumber section
-        emailBody = emailBody.replace(CUCUMBER_RESULTS_PLACEHOLDER, getCucumberResultsHTML());
-
+        this.title = title;
+        this.url = url;
+        this.version = version;
+        this.browser = browser;
+        this.finishDate = finishDate;
+        this.testResultItems = testResultItems;
+        this.createdItems = createdItems;
+        testResultItems.sort(new EmailReportItemComparator());
+        // summary is placed before the results, so counters are calculated before the report is written
+        for (TestResultItem testResultItem : testResultItems) {
+            counters.add(testResultItem, 1);
+        }
     }
 
+    /**
+     * Build the whole report in memory. Prefer {@link #write(Writer)} for big suites.
+     *
+     * @return emailable report html
+     */
     public String getEmailBody() {
-        return emailBody;
+        StringWriter writer = new StringWriter();
+        try {
+            write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
     }
 
-    private String getTestResultsList(List<TestResultItem> testResultItems) {
-        if (!testResultItems.isEmpty()) {
-            testResultItems.sort(new EmailReportItemComparator());
-
-            String packageName = "";
-            testResults = new StringBuilder();
-            for (TestResultItem testResultItem : testResultItems) {
-                if (!testResultItem.isConfig() && !packageName.equals(testResultItem.getPack())) {
-                    packageName = testResultItem.getPack();
-                    testResults.append(PACKAGE_TR.replace(PACKAGE_NAME_PLACEHOLDER, packageName));
-                }
-                testResults.append(getTestRow(testResultItem));
+    /**
+     * Write emailable report in a single pass: summary, then package groups and test rows one by one.
+     *
+     * @param writer destination of the report html
+     * @throws IOException if report could not be written
+     */
+    @Override
+    public void write(Writer writer) throws IOException {
+        writeSummary(writer, title, url, version, browser, finishDate, counters);
+        String packageName = "";
+        for (TestResultItem testResultItem : testResultItems) {
+            if (!testResultItem.isConfig() && !packageName.equals(testResultItem.getPack())) {
+                packageName = testResultItem.getPack();
+                writePackageRow(writer, packageName);
             }
+            writeTestRow(writer, testResultItem);
         }
-        return testResults != null ? testResults.toString() : "";
+        writeTail(writer, createdItems);
     }
 
-    private String getTestRow(TestResultItem testResultItem) {
-        String result = "";
-        String failReason = "";
+    /**
+     * Write report part before the result rows.
+     */
+    static void writeSummary(Writer writer, String title, String url, String version, String browser, String finishDate,
+            ResultCounters counters) throws IOException {
+        String[] values = new String[SLOT_NAMES.size()];
+        values[TITLE_SLOT] = title;
+        values[ENV_SLOT] = url;
+        values[VERSION_SLOT] = version;
+        values[BROWSER_SLOT] = browser;
+        values[FINISH_DATE_SLOT] = finishDate;
+        values[PASS_COUNT_SLOT] = String.valueOf(counters.getPassCount());
+        values[FAIL_COUNT_SLOT] = String.valueOf(counters.getFailCount());
+        values[SKIP_COUNT_SLOT] = String.valueOf(counters.getSkipCount());
+        values[PASS_RATE_SLOT] = String.valueOf(counters.getSuccessRate());
+        values[CUCUMBER_RESULTS_SLOT] = getCucumberResultsHTML();
+        CONTAINER_HEAD.render(writer, values);
+    }
+
+    /**
+     * Write report part after the result rows.
+     */
+    static void writeTail(Writer writer, List<String> createdItems) throws IOException {
+        String[] values = new String[SLOT_NAMES.size()];
+        values[CREATED_ITEMS_LIST_SLOT] = renderCreatedItemsList(createdItems);
+        CONTAINER_TAIL.render(writer, values);
+        writer.write('\n');
+    }
+
+    static void writePackageRow(Writer writer, String packageName) throws IOException {
+        String[] values = new String[SLOT_NAMES.size()];
+        values[PACKAGE_NAME_SLOT] = packageName;
+        PACKAGE_TR.render(writer, values);
+        writer.write('\n');
+    }
+
+    /**
+     * Write result row of the test, nothing is written for the items which are not shown in the report.
+     */
+    static void writeTestRow(Writer writer, TestResultItem testResultItem) throws IOException {
+        String[] values = new String[SLOT_NAMES.size()];
+        boolean withScreenshots = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots());
+        HtmlTemplate row = null;
         if (testResultItem.getResult().name().equalsIgnoreCase("FAIL")) {
             if (INCLUDE_FAIL) {
-                if (testResultItem.isConfig()) {
-                    result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots())
-                            ? FAIL_CONFIG_LOG_DEMO_TR
-                            : FAIL_CONFIG_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    failReason = testResultItem.getFailReason();
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
-                        result = result.replace(FAIL_CONFIG_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(FAIL_CONFIG_REASON_PLACEHOLDER, "Undefined failure: contact qa engineer!");
-                    }
+                String failReason = testResultItem.getFailReason();
+                if (!StringUtils.isEmpty(failReason)) {
+                    // Make description more compact for email report
+                    failReason = escapeFailReason(failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...")
+                            : failReason);
                 } else {
-                    result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots())
-                            ? FAIL_TEST_LOG_DEMO_TR
-                            : FAIL_TEST_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    failReason = testResultItem.getFailReason();
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
-                        result = result.replace(FAIL_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(FAIL_REASON_PLACEHOLDER, "Undefined failure: contact qa engineer!");
-                    }
+                    failReason = "Undefined failure: contact qa engineer!";
                 }
 
-                result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                if (testResultItem.getLinkToScreenshots() != null) {
-                    result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
+                if (testResultItem.isConfig()) {
+                    row = withScreenshots ? FAIL_CONFIG_LOG_DEMO_TR : FAIL_CONFIG_LOG_TR;
+                    values[FAIL_CONFIG_REASON_SLOT] = failReason;
+                } else {
+                    row = withScreenshots ? FAIL_TEST_LOG_DEMO_TR : FAIL_TEST_LOG_TR;
+                    values[FAIL_REASON_SLOT] = failReason;
                 }
             }
-            failCount++;
         }
 
-        if (testResultItem.getResult().name().equalsIgnoreCase("SKIP")) {
-            failReason = testResultItem.getFailReason();
-            if (!testResultItem.isConfig()) {
-                if (INCLUDE_SKIP) {
-                    result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots())
-                            ? SKIP_TEST_LOG_DEMO_TR
-                            : SKIP_TEST_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT
-                                ? (failReason.substring(0, MESSAGE_LIMIT) + "...")
-                                : failReason;
-                        result = result.replace(SKIP_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(SKIP_REASON_PLACEHOLDER,
-                                "Analyze SYSTEM ISSUE log for details or check dependency settings for the test.");
-                    }
-
-                    result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                    if (testResultItem.getLinkToScreenshots() != null) {
-                        result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
-                    }
+        if (testResultItem.getResult().name().equalsIgnoreCase("SKIP") && !testResultItem.isConfig()) {
+            if (INCLUDE_SKIP) {
+                row = withScreenshots ? SKIP_TEST_LOG_DEMO_TR : SKIP_TEST_LOG_TR;
+                String failReason = testResultItem.getFailReason();
+                if (!StringUtils.isEmpty(failReason)) {
+                    // Make description more compact for email report
+                    values[SKIP_REASON_SLOT] = escapeFailReason(failReason.length() > MESSAGE_LIMIT
+                            ? (failReason.substring(0, MESSAGE_LIMIT) + "...")
+                            : failReason);
+                } else {
+                    values[SKIP_REASON_SLOT] = "Analyze SYSTEM ISSUE log for details or check dependency settings for the test.";
                 }
-                skipCount++;
             }
         }
+
         if (testResultItem.getResult().name().equalsIgnoreCase("PASS") && !testResultItem.isConfig()) {
-            passCount++;
             if (INCLUDE_PASS) {
-                result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots()) ? PASS_TEST_LOG_DEMO_TR
-                        : PASS_TEST_LOG_TR;
-                result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-                result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                if (testResultItem.getLinkToScreenshots() != null) {
-                    result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
-                }
+                row = withScreenshots ? PASS_TEST_LOG_DEMO_TR : PASS_TEST_LOG_TR;
             }
         }
-        return result;
+
+        if (row != null) {
+            values[TEST_NAME_SLOT] = testResultItem.getTest();
+            values[LOG_URL_SLOT] = testResultItem.getLinkToLog();
+            values[SCREENSHOTS_URL_SLOT] = testResultItem.getLinkToScreenshots();
+            row.render(writer, values);
+            writer.write('\n');
+        }
     }
 
-    private int getSuccessRate() {
-        return passCount > 0 ? (int) (((double) passCount) / ((double) passCount + (double) failCount + (double) skipCount) * 100) : 0;
+    private static HtmlTemplate compile(String templateName) {
+        String template = TEMPLATES.get(templateName);
+        if (template == null) {
+            throw new IllegalStateException(String.format("Template '%s' is not found in %s", templateName, TEMPLATES_RESOURCE));
+        }
+        return HtmlTemplate.compile(template, SLOT_NAMES);
     }
 
     public static TestResult getSuiteResult(List<TestResultItem> ris) {
@@ -310,18 +300,35 @@ public class EmailReportGenerator {
     }
 
     public String getCreatedItemsList(List<String> createdItems) {
+        return renderCreatedItemsList(createdItems);
+    }
+
+    private static String renderCreatedItemsList(List<String> createdItems) {
         if (!CollectionUtils.isEmpty(createdItems)) {
-            StringBuilder result = new StringBuilder();
-            for (String createdItem : createdItems) {
-                result.append(CREATED_ITEM.replace(CREATED_ITEM_PLACEHOLDER, createdItem));
+            String[] itemValues = new String[SLOT_NAMES.size()];
+            StringWriter result = new StringWriter();
+            try {
+                for (String createdItem : createdItems) {
+                    itemValues[CREATED_ITEM_SLOT] = createdItem;
+                    CREATED_ITEM.render(result, itemValues);
+                }
+                itemValues[CREATED_ITEMS_LIST_SLOT] = result.toString();
+                result = new StringWriter();
+                CREATED_ITEMS_LIST.render(result, itemValues);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            return CREATED_ITEMS_LIST.replace(CREATED_ITEMS_LIST_PLACEHOLDER, result.toString());
+            return result.toString();
         } else {
             return "";
         }
     }
 
     public String formatFailReasonAsHtml(String reasonText) {
+        return escapeFailReason(reasonText);
+    }
+
+    private static String escapeFailReason(String reasonText) {
         if (!StringUtils.isEmpty(reasonText)) {
             reasonText = StringEscapeUtils.escapeHtml4(reasonText);
             reasonText = reasonText.replace("\n", "<br/>");
@@ -329,7 +336,7 @@ public class EmailReportGenerator {
         return reasonText;
     }
 
-    private String getCucumberResultsHTML() {
+    private static String getCucumberResultsHTML() {
         String result = "";
 
         if (isCucumberReportFolderExists()) {
@@ -350,7 +357,7 @@ public class EmailReportGenerator {
      * 
      * @return boolean
      */
-    private boolean isCucumberReportFolderExists() {
+    private static boolean isCucumberReportFolderExists() {
         try {
             File reportOutputDirectory = new File(String.format("%s/%s", ReportContext.getBaseDirectory().toFile(), SpecialKeywords.CUCUMBER_REPORT_FOLDER));
             if (reportOutputDirectory.exists() && reportOutputDirectory.isDirectory()) {
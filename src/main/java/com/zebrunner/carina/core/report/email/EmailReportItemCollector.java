@@ -15,17 +15,20 @@
  *******************************************************************************/
 package com.zebrunner.carina.core.report.email;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
-import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ClassUtils;
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ITestResult;
@@ -33,43 +36,152 @@ import org.testng.ITestResult;
 import com.zebrunner.carina.utils.report.TestResultItem;
 
 /**
- * EmailReportGenerator generates emailable report using data from test suite log.
+ * EmailReportGenerator generates emailable report using data from test suite log.<br>
+ * Results are collected without the global lock: every result gets the sequence number on the first push,
+ * so {@link #getTestResults()} keeps the order of the first insertion like the linked map did.
  * 
  * @author Alex Khursevich
  */
 public class EmailReportItemCollector {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private static LinkedHashMap<String, TestResultItem> emailResultsMap = new LinkedHashMap<String, TestResultItem>();
-    private static Map<String, TestResultItem> testResultsMap = Collections.synchronizedMap(new HashMap<String, TestResultItem>());
-    private static List<String> createdItems = new ArrayList<String>();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final ConcurrentMap<String, SequencedItem> emailResultsMap = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, TestResultItem> testResultsMap = new ConcurrentHashMap<>();
+    private static final List<String> createdItems = new CopyOnWriteArrayList<>();
+    // package names shared by the spilled results
+    private static final ConcurrentMap<String, String> packages = new ConcurrentHashMap<>();
+    private static volatile EmailReportJournal journal = null;
+    private static volatile TestResultSpillFile spillFile = null;
 
-    public static synchronized void push(TestResultItem emailItem) {
-        emailResultsMap.put(emailItem.hash(), emailItem);
-        testResultsMap.put(emailItem.getTest(), emailItem);
+    public static void push(TestResultItem testResultItem) {
+        TestResultItem emailItem = compact(testResultItem);
+        // retried test replaces the result but keeps the position of the first one
+        emailResultsMap.compute(emailItem.hash(), (hash, previous) -> new SequencedItem(
+                previous != null ? previous.sequence : SEQUENCE.getAndIncrement(), emailItem));
+        if (emailItem.getTest() != null) {
+            testResultsMap.put(emailItem.getTest(), emailItem);
+        }
+        EmailReportJournal reportJournal = journal;
+        if (reportJournal != null) {
+            reportJournal.append(testResultItem);
+        }
     }
 
-    public static synchronized void push(String itemToDelete) {
+    /**
+     * Keep only the compact index of the collected results in heap, description, links and fail reason
+     * are moved into the memory-mapped side file and read lazily when the report is rendered.
+     *
+     * @throws IOException if the side file could not be created
+     */
+    public static synchronized void startSpill() throws IOException {
+        if (spillFile == null) {
+            spillFile = TestResultSpillFile.createTemporary();
+        }
+    }
+
+    public static void push(String itemToDelete) {
         createdItems.add(itemToDelete);
     }
 
-    public static synchronized TestResultItem pull(ITestResult result) {
-        TestResultItem testResultItem = null;
-        try {
-            Class<?> artifactClass = ClassUtils.getClass("com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry");
-            Object object = MethodUtils.invokeStaticMethod(artifactClass, "get");
-            Object name = MethodUtils.invokeMethod(object, "resolve", result);
-            testResultItem = testResultsMap.get(name);
-        } catch (ClassNotFoundException | InvocationTargetException | NoSuchMethodException | IllegalAccessException e) {
+    /**
+     * Start appending every pushed result into the incremental email report journal.
+     * Results collected before the start (previous suites of the run) are appended first.
+     *
+     * @param reportJournal {@link EmailReportJournal}
+     */
+    public static synchronized void startJournal(EmailReportJournal reportJournal) {
+        getTestResults().forEach(reportJournal::append);
+        journal = reportJournal;
+    }
+
+    /**
+     * Close the journal started by {@link #startJournal(EmailReportJournal)}, next results are only collected in memory.
+     */
+    public static synchronized void closeJournal() {
+        EmailReportJournal reportJournal = journal;
+        journal = null;
+        if (reportJournal != null) {
+            try {
+                reportJournal.close();
+            } catch (IOException e) {
+                LOGGER.error("Unable to close email report journal", e);
+            }
+        }
+    }
+
+    public static Optional<EmailReportJournal> getJournal() {
+        return Optional.ofNullable(journal);
+    }
+
+    public static TestResultItem pull(ITestResult result) {
+        if (TestNameResolverHandle.RESOLVE == null) {
             LOGGER.debug("Cannot get info from TestNameResolverRegistry class because Zebrunner agent does not loaded in classloader");
+            return null;
+        }
+        String name;
+        try {
+            name = (String) TestNameResolverHandle.RESOLVE.invokeExact(result);
+        } catch (Throwable e) {
+            LOGGER.debug("Cannot resolve test name using TestNameResolverRegistry", e);
+            return null;
         }
-        return testResultItem;
+        return name != null ? testResultsMap.get(name) : null;
     }
 
     public static List<TestResultItem> getTestResults() {
-        return new ArrayList<TestResultItem>(emailResultsMap.values());
+        return emailResultsMap.values()
+                .stream()
+                .sorted(Comparator.comparingLong(item -> item.sequence))
+                .map(item -> item.item)
+                .collect(Collectors.toList());
     }
 
     public static List<String> getCreatedItems() {
         return createdItems;
     }
+
+    private static TestResultItem compact(TestResultItem testResultItem) {
+        TestResultSpillFile file = spillFile;
+        if (file == null) {
+            return testResultItem;
+        }
+        try {
+            return SpilledTestResultItem.spill(testResultItem, packages.computeIfAbsent(testResultItem.getPack(), pack -> pack), file);
+        } catch (IOException e) {
+            LOGGER.error("Unable to spill test result to the disk, it will be kept in memory", e);
+            return testResultItem;
+        }
+    }
+
+    private static final class SequencedItem {
+        private final long sequence;
+        private final TestResultItem item;
+
+        private SequencedItem(long sequence, TestResultItem item) {
+            this.sequence = sequence;
+            this.item = item;
+        }
+    }
+
+    /*
+     * Handle of TestNameResolverRegistry.get().resolve(result) looked up once.
+     * The resolver itself is taken on every call because it could be replaced with TestNameResolverRegistry.set.
+     */
+    private static final class TestNameResolverHandle {
+        // null when the Zebrunner agent is not loaded
+        private static final MethodHandle RESOLVE = findResolve();
+
+        private static MethodHandle findResolve() {
+            try {
+                Class<?> registryClass = ClassUtils.getClass("com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry");
+                Class<?> resolverClass = ClassUtils.getClass("com.zebrunner.agent.testng.core.testname.TestNameResolver");
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                MethodHandle get = lookup.findStatic(registryClass, "get", MethodType.methodType(resolverClass));
+                MethodHandle resolve = lookup.findVirtual(resolverClass, "resolve", MethodType.methodType(String.class, ITestResult.class));
+                return MethodHandles.foldArguments(resolve, get);
+            } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
+    }
 }
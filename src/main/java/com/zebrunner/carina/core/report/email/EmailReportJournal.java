@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zebrunner.carina.utils.DateUtils;
+import com.zebrunner.carina.utils.report.TestResultItem;
+
+/**
+ * Incremental emailable report built during the run.<br>
+ * Every pushed result is rendered into the row once and appended to the on-disk journal ({@value #JOURNAL_FILE_NAME}).
+ * The live report ({@value #LIVE_REPORT_FILE_NAME}) gets the same row appended and its summary rewritten in place
+ * from the running counters, so the report is available even if the JVM is killed in the middle of the run.<br>
+ * The final report is assembled from the journal rows sorted by package and test name,
+ * the journal which does not fit into memory is sorted by the external merge.
+ * The journal is deleted on close, the live report is kept.
+ */
+public final class EmailReportJournal implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String JOURNAL_FILE_NAME = "email-report.journal";
+    public static final String LIVE_REPORT_FILE_NAME = "emailable-report-live.html";
+
+    static final int DEFAULT_MAX_IN_MEMORY_RECORDS = 10_000;
+    // free space after the live report summary, so it could be rewritten in place when counters grow
+    private static final int SUMMARY_RESERVE = 1024;
+    private static final Comparator<JournalRecord> RECORD_ORDER = Comparator.comparing((JournalRecord record) -> record.pack)
+            .thenComparing(record -> record.test)
+            .thenComparingLong(record -> record.sequence);
+
+    private final Path directory;
+    private final Path journalFile;
+    private final String title;
+    private final String env;
+    private final String version;
+    private final String browser;
+    private final int maxInMemoryRecords;
+    private final BufferedWriter journal;
+    private final FileChannel liveReport;
+    private final byte[] liveReportTail;
+    private final ResultCounters counters = new ResultCounters();
+    // last result of every test, so the counters are corrected when the test is retried
+    private final Map<String, TestResultItem> lastResults = new HashMap<>();
+
+    private long sequence = 0;
+    private int summaryCapacity;
+    private long rowsEnd;
+    private String livePackageName = "";
+    private boolean closed = false;
+
+    /**
+     * Create journal and the live report in the directory of the run.
+     *
+     * @param directory directory of the run
+     * @param title report title
+     * @param env environment
+     * @param version application version
+     * @param browser browser
+     * @throws IOException if journal or live report could not be created
+     */
+    public EmailReportJournal(Path directory, String title, String env, String version, String browser) throws IOException {
+        this(directory, title, env, version, browser, DEFAULT_MAX_IN_MEMORY_RECORDS);
+    }
+
+    EmailReportJournal(Path directory, String title, String env, String version, String browser, int maxInMemoryRecords)
+            throws IOException {
+        this.directory = directory;
+        this.journalFile = directory.resolve(JOURNAL_FILE_NAME);
+        this.title = title;
+        this.env = env;
+        this.version = version;
+        this.browser = browser;
+        this.maxInMemoryRecords = maxInMemoryRecords;
+        this.journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8);
+        this.liveReport = FileChannel.open(directory.resolve(LIVE_REPORT_FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        StringWriter tail = new StringWriter();
+        EmailReportGenerator.writeTail(tail, List.of());
+        this.liveReportTail = tail.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] summary = renderLiveSummary();
+        this.summaryCapacity = summary.length + SUMMARY_RESERVE;
+        this.rowsEnd = summaryCapacity;
+        writeLiveSummary(summary);
+        liveReport.write(ByteBuffer.wrap(liveReportTail), rowsEnd);
+    }
+
+    /**
+     * Append result to the journal and to the live report.
+     *
+     * @param testResultItem {@link TestResultItem}
+     */
+    public synchronized void append(TestResultItem testResultItem) {
+        if (closed) {
+            return;
+        }
+        try {
+            TestResultItem previousResult = lastResults.put(testResultItem.hash(), testResultItem);
+            if (previousResult != null) {
+                counters.add(previousResult, -1);
+            }
+            counters.add(testResultItem, 1);
+
+            StringWriter row = new StringWriter();
+            EmailReportGenerator.writeTestRow(row, testResultItem);
+            JournalRecord record = new JournalRecord(sequence++, testResultItem.isConfig(), testResultItem.getPack(),
+                    testResultItem.getTest(), row.toString());
+            journal.write(record.format());
+            journal.newLine();
+            journal.flush();
+
+            if (!testResultItem.isConfig() && !livePackageName.equals(testResultItem.getPack())) {
+                livePackageName = testResultItem.getPack();
+                StringWriter packageRow = new StringWriter();
+                EmailReportGenerator.writePackageRow(packageRow, livePackageName);
+                packageRow.write(record.row);
+                appendLiveRow(packageRow.toString());
+            } else {
+                appendLiveRow(record.row);
+            }
+            byte[] summary = renderLiveSummary();
+            if (summary.length <= summaryCapacity) {
+                writeLiveSummary(summary);
+            } else {
+                LOGGER.debug("Live email report summary does not fit into the reserved space and will not be updated.");
+            }
+        } catch (IOException e) {
+            LOGGER.error("Unable to append result into the email report journal", e);
+        }
+    }
+
+    /**
+     * Final report assembled from the journal.
+     *
+     * @param reportTitle report title
+     * @param reportEnv environment
+     * @param reportVersion application version
+     * @param reportBrowser browser
+     * @param finishDate finish date
+     * @param createdItems created items
+     * @return {@link EmailReport}
+     */
+    public EmailReport toReport(String reportTitle, String reportEnv, String reportVersion, String reportBrowser, String finishDate,
+            List<String> createdItems) {
+        return writer -> {
+            synchronized (this) {
+                EmailReportGenerator.writeSummary(writer, reportTitle, reportEnv, reportVersion, reportBrowser, finishDate, counters);
+                writeSortedRows(writer);
+                EmailReportGenerator.writeTail(writer, createdItems);
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            journal.close();
+        } finally {
+            try {
+                liveReport.close();
+            } finally {
+                Files.deleteIfExists(journalFile);
+            }
+        }
+    }
+
+    private byte[] renderLiveSummary() throws IOException {
+        StringWriter summary = new StringWriter();
+        EmailReportGenerator.writeSummary(summary, title, env, version, browser, "in progress, updated at " + DateUtils.now(), counters);
+        return summary.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void writeLiveSummary(byte[] summary) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(summaryCapacity);
+        buffer.put(summary);
+        // html ignores the whitespaces between the summary and the rows
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) ' ');
+        }
+        buffer.flip();
+        liveReport.write(buffer, 0);
+    }
+
+    private void appendLiveRow(String row) throws IOException {
+        byte[] rowBytes = row.getBytes(StandardCharsets.UTF_8);
+        liveReport.write(ByteBuffer.wrap(rowBytes), rowsEnd);
+        rowsEnd += rowBytes.length;
+        liveReport.write(ByteBuffer.wrap(liveReportTail), rowsEnd);
+    }
+
+    private void writeSortedRows(Writer writer) throws IOException {
+        journal.flush();
+        List<Path> runs = new ArrayList<>();
+        try {
+            List<JournalRecord> chunk = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    chunk.add(JournalRecord.parse(line));
+                    if (chunk.size() >= maxInMemoryRecords) {
+                        runs.add(writeRun(chunk));
+                        chunk.clear();
+                    }
+                }
+            }
+
+            if (runs.isEmpty()) {
+                chunk.sort(RECORD_ORDER);
+                writeRows(writer, chunk.iterator());
+                return;
+            }
+            if (!chunk.isEmpty()) {
+                runs.add(writeRun(chunk));
+            }
+            List<BufferedReader> readers = new ArrayList<>();
+            try {
+                for (Path run : runs) {
+                    readers.add(Files.newBufferedReader(run, StandardCharsets.UTF_8));
+                }
+                writeRows(writer, new MergeIterator(readers));
+            } finally {
+                for (BufferedReader reader : readers) {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private Path writeRun(List<JournalRecord> chunk) throws IOException {
+        chunk.sort(RECORD_ORDER);
+        Path run = Files.createTempFile(directory, "email-report-", ".run");
+        try (BufferedWriter runWriter = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (JournalRecord record : chunk) {
+                runWriter.write(record.format());
+                runWriter.newLine();
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Write rows sorted by package, test and sequence. Only the latest record of the test is written (retried tests).
+     */
+    private static void writeRows(Writer writer, Iterator<JournalRecord> records) throws IOException {
+        String packageName = "";
+        JournalRecord pending = null;
+        while (records.hasNext()) {
+            JournalRecord record = records.next();
+            if (pending != null && !(pending.pack.equals(record.pack) && pending.test.equals(record.test))) {
+                packageName = writeRow(writer, pending, packageName);
+            }
+            pending = record;
+        }
+        if (pending != null) {
+            writeRow(writer, pending, packageName);
+        }
+    }
+
+    private static String writeRow(Writer writer, JournalRecord record, String packageName) throws IOException {
+        if (!record.config && !packageName.equals(record.pack)) {
+            packageName = record.pack;
+            EmailReportGenerator.writePackageRow(writer, packageName);
+        }
+        writer.write(record.row);
+        return packageName;
+    }
+
+    private static final class MergeIterator implements Iterator<JournalRecord> {
+        private final PriorityQueue<RunCursor> cursors = new PriorityQueue<>((c1, c2) -> RECORD_ORDER.compare(c1.record, c2.record));
+
+        private MergeIterator(List<BufferedReader> readers) throws IOException {
+            for (BufferedReader reader : readers) {
+                RunCursor cursor = new RunCursor(reader);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cursors.isEmpty();
+        }
+
+        @Override
+        public JournalRecord next() {
+            RunCursor cursor = cursors.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            JournalRecord record = cursor.record;
+            try {
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read sorted email report run", e);
+            }
+            return record;
+        }
+    }
+
+    private static final class RunCursor {
+        private final BufferedReader reader;
+        private JournalRecord record;
+
+        private RunCursor(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        private boolean advance() throws IOException {
+            String line = reader.readLine();
+            record = line != null ? JournalRecord.parse(line) : null;
+            return record != null;
+        }
+    }
+
+    /*
+     * Single line of the journal: tab separated sequence, config flag, package, test and rendered row.
+     */
+    static final class JournalRecord {
+        private final long sequence;
+        private final boolean config;
+        private final String pack;
+        private final String test;
+        private final String row;
+
+        JournalRecord(long sequence, boolean config, String pack, String test, String row) {
+            this.sequence = sequence;
+            this.config = config;
+            this.pack = pack;
+            this.test = test;
+            this.row = row;
+        }
+
+        String format() {
+            return sequence + "\t" + (config ? "1" : "0") + "\t" + escape(pack) + "\t" + escape(test) + "\t" + escape(row);
+        }
+
+        static JournalRecord parse(String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Corrupted email report journal line: " + line);
+            }
+            return new JournalRecord(Long.parseLong(fields[0]), "1".equals(fields[1]), unescape(fields[2]), unescape(fields[3]),
+                    unescape(fields[4]));
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            StringBuilder escaped = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+                    break;
+                }
+            }
+            return escaped.toString();
+        }
+
+        private static String unescape(String value) {
+            StringBuilder unescaped = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char next = value.charAt(++i);
+                    switch (next) {
+                    case 't':
+                        unescaped.append('\t');
+                        break;
+                    case 'n':
+                        unescaped.append('\n');
+                        break;
+                    case 'r':
+                        unescaped.append('\r');
+                        break;
+                    default:
+                        unescaped.append(next);
+                        break;
+                    }
+                } else {
+                    unescaped.append(c);
+                }
+            }
+            return unescaped.toString();
+        }
+    }
+}
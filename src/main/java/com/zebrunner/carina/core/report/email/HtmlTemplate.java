@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Html template compiled once into literal segments and slot indexes, so rendering is a single pass of writes
+ * without intermediate strings. Placeholders look like {@code ${name}}, unknown placeholders are kept as the literal text.
+ */
+final class HtmlTemplate {
+
+    private static final String PLACEHOLDER_START = "${";
+    private static final String PLACEHOLDER_END = "}";
+    private static final Pattern TEMPLATE_START = Pattern.compile("^<!-- template: ([\\w-]+) -->$");
+
+    // literals[i] is written before slots[i], the last literal is written after the last slot
+    private final String[] literals;
+    private final int[] slots;
+    // written instead of the slot value when it is not set
+    private final String[] placeholders;
+
+    private HtmlTemplate(String[] literals, int[] slots, String[] placeholders) {
+        this.literals = literals;
+        this.slots = slots;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Compile template text.
+     *
+     * @param text template text
+     * @param slotNames names of the supported placeholders, index of the name is the index of its value in {@link #render(Writer, String[])}
+     * @return {@link HtmlTemplate}
+     */
+    static HtmlTemplate compile(String text, List<String> slotNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int position = 0;
+        while (position < text.length()) {
+            int start = text.indexOf(PLACEHOLDER_START, position);
+            int end = start < 0 ? -1 : text.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+            if (end < 0) {
+                literal.append(text, position, text.length());
+                break;
+            }
+            String placeholder = text.substring(start, end + PLACEHOLDER_END.length());
+            int slot = slotNames.indexOf(text.substring(start + PLACEHOLDER_START.length(), end));
+            literal.append(text, position, start);
+            if (slot < 0) {
+                literal.append(placeholder);
+            } else {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                slots.add(slot);
+                placeholders.add(placeholder);
+            }
+            position = end + PLACEHOLDER_END.length();
+        }
+        literals.add(literal.toString());
+
+        return new HtmlTemplate(literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(),
+                placeholders.toArray(new String[0]));
+    }
+
+    /**
+     * Load templates from the classpath resource. Every template starts with the {@code <!-- template: name -->} line
+     * and lasts until the next one, trailing line breaks are not included into the template.
+     *
+     * @param resourceName classpath resource name
+     * @return template text by template name
+     */
+    static Map<String, String> load(String resourceName) {
+        Map<String, String> templates = new HashMap<>();
+        try (InputStream stream = HtmlTemplate.class.getClassLoader().getResourceAsStream(resourceName)) {
+            if (stream == null) {
+                throw new IllegalStateException("Unable to find resource " + resourceName);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            String name = null;
+            StringBuilder text = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = TEMPLATE_START.matcher(line);
+                if (matcher.matches()) {
+                    putTemplate(templates, name, text);
+                    name = matcher.group(1);
+                    text.setLength(0);
+                } else if (name != null) {
+                    text.append(line).append('\n');
+                }
+            }
+            putTemplate(templates, name, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read resource " + resourceName, e);
+        }
+        return templates;
+    }
+
+    /**
+     * Render template.
+     *
+     * @param writer destination
+     * @param values values by slot index, placeholder is written as is for null value
+     * @throws IOException if writer failed
+     */
+    void render(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < slots.length; i++) {
+            writer.write(literals[i]);
+            String value = values[slots[i]];
+            writer.write(value != null ? value : placeholders[i]);
+        }
+        writer.write(literals[slots.length]);
+    }
+
+    /**
+     * @param slot slot index
+     * @return part of the template before the first occurrence of the slot
+     */
+    HtmlTemplate before(int slot) {
+        int index = indexOf(slot);
+        String[] partLiterals = Arrays.copyOf(literals, index + 1);
+        return new HtmlTemplate(partLiterals, Arrays.copyOf(slots, index), Arrays.copyOf(placeholders, index));
+    }
+
+    /**
+     * @param slot slot index
+     * @return part of the template after the first occurrence of the slot
+     */
+    HtmlTemplate after(int slot) {
+        int index = indexOf(slot);
+        return new HtmlTemplate(Arrays.copyOfRange(literals, index + 1, literals.length),
+                Arrays.copyOfRange(slots, index + 1, slots.length),
+                Arrays.copyOfRange(placeholders, index + 1, placeholders.length));
+    }
+
+    private int indexOf(int slot) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == slot) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Template does not contain slot " + slot);
+    }
+
+    private static void putTemplate(Map<String, String> templates, String name, StringBuilder text) {
+        if (name == null) {
+            return;
+        }
+        int length = text.length();
+        while (length > 0 && (text.charAt(length - 1) == '\n' || text.charAt(length - 1) == '\r')) {
+            length--;
+        }
+        templates.put(name, text.substring(0, length));
+    }
+}
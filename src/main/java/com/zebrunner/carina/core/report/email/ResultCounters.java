@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import com.zebrunner.carina.utils.report.TestResultItem;
+
+/*
+ * Counters of the report summary. Failed configuration methods are counted as failures,
+ * passed and skipped ones are not counted at all.
+ */
+final class ResultCounters {
+
+    private int passCount = 0;
+    private int failCount = 0;
+    private int skipCount = 0;
+
+    /**
+     * @param testResultItem result
+     * @param delta 1 to add the result, -1 to remove the result replaced by the retry
+     */
+    void add(TestResultItem testResultItem, int delta) {
+        switch (testResultItem.getResult()) {
+        case FAIL:
+            failCount += delta;
+            break;
+        case SKIP:
+            if (!testResultItem.isConfig()) {
+                skipCount += delta;
+            }
+            break;
+        case PASS:
+            if (!testResultItem.isConfig()) {
+                passCount += delta;
+            }
+            break;
+        default:
+            // do nothing
+            break;
+        }
+    }
+
+    int getPassCount() {
+        return passCount;
+    }
+
+    int getFailCount() {
+        return failCount;
+    }
+
+    int getSkipCount() {
+        return skipCount;
+    }
+
+    int getSuccessRate() {
+        return passCount > 0 ? (int) (((double) passCount) / ((double) passCount + (double) failCount + (double) skipCount) * 100) : 0;
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.IOException;
+
+import com.zebrunner.carina.utils.report.TestResultItem;
+import com.zebrunner.carina.utils.report.TestResultType;
+
+/*
+ * Compact heap view of the collected result: package, test and status are kept in heap,
+ * description, links and fail reason (usually the full stack trace) are read lazily from the spill file.
+ */
+final class SpilledTestResultItem extends TestResultItem {
+    private static final int DESCRIPTION = 0;
+    private static final int LINK_TO_LOG = 1;
+    private static final int LINK_TO_SCREENSHOTS = 2;
+    private static final int FAIL_REASON = 3;
+    private static final int FIELDS_COUNT = 4;
+
+    private final TestResultSpillFile spillFile;
+    private final long offset;
+
+    private SpilledTestResultItem(String pack, String test, TestResultType result, TestResultSpillFile spillFile, long offset) {
+        super(pack, test, null, result, null, null, null);
+        this.spillFile = spillFile;
+        this.offset = offset;
+    }
+
+    /**
+     * Move text fields of the result into the spill file.
+     *
+     * @param item collected result
+     * @param pack package name shared by all results of the package
+     * @param spillFile {@link TestResultSpillFile}
+     * @return compact result
+     * @throws IOException if the spill file could not be extended
+     */
+    static SpilledTestResultItem spill(TestResultItem item, String pack, TestResultSpillFile spillFile) throws IOException {
+        long offset = spillFile.append(item.getDescription(), item.getLinkToLog(), item.getLinkToScreenshots(), item.getFailReason());
+        return new SpilledTestResultItem(pack, item.getTest(), item.getResult(), spillFile, offset);
+    }
+
+    @Override
+    public String getDescription() {
+        return read(DESCRIPTION);
+    }
+
+    @Override
+    public String getLinkToLog() {
+        return read(LINK_TO_LOG);
+    }
+
+    @Override
+    public String getLinkToScreenshots() {
+        return read(LINK_TO_SCREENSHOTS);
+    }
+
+    @Override
+    public String getFailReason() {
+        // stored value is already converted by TestResultItem.getFailReason
+        return read(FAIL_REASON);
+    }
+
+    private String read(int field) {
+        return spillFile.read(offset, FIELDS_COUNT)[field];
+    }
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Append-only memory-mapped side file with the large text fields of the collected results.
+ * Record is the sequence of length-prefixed UTF-8 strings (-1 length for null), addressed by its offset in the file.
+ * The file is mapped in chunks, record which does not fit into the rest of the current chunk starts the new one.
+ */
+final class TestResultSpillFile {
+
+    static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final FileChannel channel;
+    // mapped chunks by the offset of their first byte
+    private final TreeMap<Long, MappedByteBuffer> chunks = new TreeMap<>();
+    private MappedByteBuffer currentChunk = null;
+    private long currentChunkOffset = 0;
+
+    TestResultSpillFile(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    static TestResultSpillFile createTemporary() throws IOException {
+        Path file = Files.createTempFile("carina-email-report-", ".bin");
+        file.toFile().deleteOnExit();
+        return new TestResultSpillFile(file);
+    }
+
+    /**
+     * Append record.
+     *
+     * @param fields text fields, could contain nulls
+     * @return offset of the record
+     * @throws IOException if the next chunk could not be mapped
+     */
+    synchronized long append(String... fields) throws IOException {
+        byte[][] encoded = new byte[fields.length][];
+        int length = 0;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i] != null ? fields[i].getBytes(StandardCharsets.UTF_8) : null;
+            length += Integer.BYTES + (encoded[i] != null ? encoded[i].length : 0);
+        }
+
+        if (currentChunk == null || currentChunk.remaining() < length) {
+            long offset = currentChunk == null ? 0 : currentChunkOffset + currentChunk.capacity();
+            // mapping beyond the end of file extends it
+            currentChunk = channel.map(FileChannel.MapMode.READ_WRITE, offset, Math.max(CHUNK_SIZE, length));
+            currentChunkOffset = offset;
+            chunks.put(offset, currentChunk);
+        }
+
+        long recordOffset = currentChunkOffset + currentChunk.position();
+        for (byte[] field : encoded) {
+            if (field == null) {
+                currentChunk.putInt(-1);
+            } else {
+                currentChunk.putInt(field.length);
+                currentChunk.put(field);
+            }
+        }
+        return recordOffset;
+    }
+
+    /**
+     * Read record.
+     *
+     * @param offset offset returned by {@link #append(String...)}
+     * @param fieldsCount number of fields in the record
+     * @return text fields
+     */
+    synchronized String[] read(long offset, int fieldsCount) {
+        Map.Entry<Long, MappedByteBuffer> chunk = chunks.floorEntry(offset);
+        if (chunk == null) {
+            throw new IllegalArgumentException("There is no record at offset " + offset);
+        }
+        ByteBuffer record = chunk.getValue().duplicate();
+        record.position((int) (offset - chunk.getKey()));
+        String[] fields = new String[fieldsCount];
+        for (int i = 0; i < fieldsCount; i++) {
+            int length = record.getInt();
+            if (length >= 0) {
+                byte[] field = new byte[length];
+                record.get(field);
+                fields[i] = new String(field, StandardCharsets.UTF_8);
+            }
+        }
+        return fields;
+    }
+
+    synchronized long size() {
+        return currentChunk == null ? 0 : currentChunkOffset + currentChunk.position();
+    }
+}
@@ -24,9 +24,9 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ITestContext;
-import org.testng.ITestNGMethod;
 
 import com.zebrunner.carina.core.rule.IRule;
+import com.zebrunner.carina.core.testng.SuiteDependencyIndex;
 
 public class ExpectedSkipManager {
 
@@ -84,14 +84,8 @@ public class ExpectedSkipManager {
         rules.addAll(getRulesFromAnnotation(methodSkipAnnotation));
 
         // analyze all dependent methods and collect rules
-        ITestNGMethod[] methods = context.getAllTestMethods();
-        for (ITestNGMethod iTestNGMethod : methods) {
-            if (iTestNGMethod.getMethodName().equalsIgnoreCase(testMethod.getName())) {
-                String[] methodsDep = iTestNGMethod.getMethodsDependedUpon();
-                for (String method : methodsDep) {
-                    rules.addAll(getDependentMethodsRules(method));
-                }
-            }
+        for (String method : SuiteDependencyIndex.get(context).getMethodsDependedUpon(testMethod.getName())) {
+            rules.addAll(getDependentMethodsRules(method));
         }
 
         return rules;
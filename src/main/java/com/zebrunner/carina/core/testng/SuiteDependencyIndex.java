@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.testng;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.ISuite;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+/**
+ * Reverse dependency index of the suite methods. Built once per suite instead of scanning all suite methods
+ * and their {@code dependsOnMethods} on every test. Index of the single {@code <test>} methods is built once per test context.
+ */
+public final class SuiteDependencyIndex {
+    private static final String SUITE_ATTRIBUTE = "carinaSuiteDependencyIndex";
+    private static final String CONTEXT_ATTRIBUTE = "carinaTestDependencyIndex";
+
+    // names of the methods any suite method depends on, as declared by TestNG (usually full class name and method name)
+    private final Set<String> dependedUponMethods = new HashSet<>();
+    // methods depended upon by the suite methods, by lower-cased name of the dependent method
+    private final Map<String, List<String>> dependenciesByMethodName = new HashMap<>();
+
+    private SuiteDependencyIndex(Iterable<ITestNGMethod> methods) {
+        for (ITestNGMethod method : methods) {
+            String[] methodsDependedUpon = method.getMethodsDependedUpon();
+            if (methodsDependedUpon.length == 0) {
+                continue;
+            }
+            Collections.addAll(dependedUponMethods, methodsDependedUpon);
+            Collections.addAll(dependenciesByMethodName.computeIfAbsent(method.getMethodName().toLowerCase(Locale.ROOT),
+                    name -> new ArrayList<>()), methodsDependedUpon);
+        }
+    }
+
+    /**
+     * Build index of the suite and store it in the suite attributes.
+     *
+     * @param suite {@link ISuite}
+     * @return {@link SuiteDependencyIndex}
+     */
+    public static SuiteDependencyIndex build(ISuite suite) {
+        SuiteDependencyIndex index = new SuiteDependencyIndex(suite.getAllMethods());
+        suite.setAttribute(SUITE_ATTRIBUTE, index);
+        return index;
+    }
+
+    /**
+     * Get index of the suite, build it if it was not built on suite start.
+     *
+     * @param suite {@link ISuite}
+     * @return {@link SuiteDependencyIndex}
+     */
+    public static SuiteDependencyIndex get(ISuite suite) {
+        Object index = suite.getAttribute(SUITE_ATTRIBUTE);
+        if (index == null) {
+            synchronized (suite) {
+                index = suite.getAttribute(SUITE_ATTRIBUTE);
+                if (index == null) {
+                    index = build(suite);
+                }
+            }
+        }
+        return (SuiteDependencyIndex) index;
+    }
+
+    /**
+     * Get index of the {@code <test>} methods, build it on the first call for the context.
+     *
+     * @param context {@link ITestContext}
+     * @return {@link SuiteDependencyIndex} of the methods returned by {@link ITestContext#getAllTestMethods()}
+     */
+    public static SuiteDependencyIndex get(ITestContext context) {
+        Object index = context.getAttribute(CONTEXT_ATTRIBUTE);
+        if (index == null) {
+            synchronized (context) {
+                index = context.getAttribute(CONTEXT_ATTRIBUTE);
+                if (index == null) {
+                    index = new SuiteDependencyIndex(Arrays.asList(context.getAllTestMethods()));
+                    context.setAttribute(CONTEXT_ATTRIBUTE, index);
+                }
+            }
+        }
+        return (SuiteDependencyIndex) index;
+    }
+
+    /**
+     * Check whether any suite method depends on the method.
+     *
+     * @param method {@link ITestNGMethod}
+     * @return true if method is referenced in {@code dependsOnMethods} of any suite method
+     */
+    public boolean isDependedUpon(ITestNGMethod method) {
+        String methodName = method.getMethodName();
+        return dependedUponMethods.contains(methodName)
+                || dependedUponMethods.contains(method.getTestClass().getName() + "." + methodName);
+    }
+
+    /**
+     * Get methods the suite methods with this name depend on.
+     *
+     * @param methodName name of the dependent method, case-insensitive
+     * @return names of the methods depended upon
+     */
+    public List<String> getMethodsDependedUpon(String methodName) {
+        return dependenciesByMethodName.getOrDefault(methodName.toLowerCase(Locale.ROOT), List.of());
+    }
+}
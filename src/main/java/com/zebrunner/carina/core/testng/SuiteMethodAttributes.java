@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.testng;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.ISuite;
+
+/**
+ * Immutable table of the {@link TestMethodAttributes} of all suite methods. Built once per suite in parallel
+ * and shared by all suite filters instead of resolving the annotations by every filter separately.
+ */
+public final class SuiteMethodAttributes {
+    private static final String SUITE_ATTRIBUTE = "carinaSuiteMethodAttributes";
+
+    private final List<TestMethodAttributes> methods;
+
+    private SuiteMethodAttributes(ISuite suite) {
+        // parallel stream keeps the suite order of the methods
+        this.methods = suite.getAllMethods()
+                .parallelStream()
+                .map(TestMethodAttributes::of)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Get attributes table of the suite, build it on the first call.
+     *
+     * @param suite {@link ISuite}
+     * @return {@link SuiteMethodAttributes}
+     */
+    public static SuiteMethodAttributes get(ISuite suite) {
+        Object attributes = suite.getAttribute(SUITE_ATTRIBUTE);
+        if (attributes == null) {
+            synchronized (suite) {
+                attributes = suite.getAttribute(SUITE_ATTRIBUTE);
+                if (attributes == null) {
+                    attributes = new SuiteMethodAttributes(suite);
+                    suite.setAttribute(SUITE_ATTRIBUTE, attributes);
+                }
+            }
+        }
+        return (SuiteMethodAttributes) attributes;
+    }
+
+    /**
+     * @return attributes of the suite methods in the suite order
+     */
+    public List<TestMethodAttributes> getMethods() {
+        return methods;
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.testng;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.ITestNGMethod;
+
+import com.zebrunner.carina.core.filter.v1.Filter;
+import com.zebrunner.carina.core.filter.v1.IFilter;
+
+/**
+ * Immutable attributes of the test method resolved once per suite: values of the rule filters (priority, owners, tags)
+ * and the qualified name used by the method pattern filter.
+ */
+public final class TestMethodAttributes {
+
+    private final ITestNGMethod method;
+    private final String qualifiedName;
+    private final Map<IFilter, List<String>> values;
+
+    private TestMethodAttributes(ITestNGMethod method) {
+        this.method = method;
+        this.qualifiedName = method.getRealClass().getSimpleName() + "#" + method.getMethodName();
+        Map<IFilter, List<String>> filterValues = new IdentityHashMap<>();
+        for (Filter filter : Filter.values()) {
+            List<String> filterValue = filter.getFilter().getValues(method);
+            if (filterValue != null) {
+                filterValues.put(filter.getFilter(), List.copyOf(filterValue));
+            }
+        }
+        this.values = Collections.unmodifiableMap(filterValues);
+    }
+
+    /**
+     * Resolve attributes of the test method. Use {@link SuiteMethodAttributes} to get attributes of the suite methods.
+     *
+     * @param method test method
+     * @return {@link TestMethodAttributes}
+     */
+    public static TestMethodAttributes of(ITestNGMethod method) {
+        return new TestMethodAttributes(method);
+    }
+
+    /**
+     * @return test method
+     */
+    public ITestNGMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return simple name of the test class and name of the method, e.g. {@code LoginTest#testLogin}
+     */
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    /**
+     * Get values of the method checked by the filter
+     *
+     * @param filter rule filter
+     * @return values, null if the filter does not expose them (see {@link IFilter#getValues(ITestNGMethod)})
+     */
+    public List<String> getValues(IFilter filter) {
+        return values.get(filter);
+    }
+}
@@ -17,10 +17,13 @@ package com.zebrunner.carina.core.testng;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Parameter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -40,6 +43,9 @@ public class TestNamingService {
     
     static final ThreadLocal<String> testName = new ThreadLocal<>();
     private static final ConcurrentHashMap<String, AtomicInteger> testNameInvCounter = new ConcurrentHashMap<>();
+    private static final String METHOD_METADATA_ATTRIBUTE = "carinaTestMethodMetadata";
+    // compiled TEST_NAMING_PATTERN, recompiled only when the configured pattern is changed
+    private static volatile NamingPattern namingPattern = null;
 
     /**
      * Get full test name based on test class, method and other generic information. It is generated by TestNameListener automatically.
@@ -93,18 +99,7 @@ public class TestNamingService {
             throw new RuntimeException("Unable to set Test name without testContext!");
         }
 
-        ITestNGMethod method = result.getMethod();
-
-        name = Configuration.getRequired(ReportConfiguration.Parameter.TEST_NAMING_PATTERN);
-        name = name.replace(SpecialKeywords.TEST_NAME, getTestNameMap(result))
-                .replace(SpecialKeywords.TEST_NAME_TUID, getMethodUID(result))
-                .replace(SpecialKeywords.METHOD_NAME, method.getMethodName())
-                .replace(SpecialKeywords.METHOD_PRIORITY, String.valueOf(method.getPriority()))
-                .replace(SpecialKeywords.METHOD_THREAD_POOL_SIZE, String.valueOf(method.getThreadPoolSize()))
-                .replace(SpecialKeywords.METHOD_GROUP_NAMES, String.join(", ", method.getGroups()))
-                .replace(SpecialKeywords.METHOD_DESCRIPTION, String.valueOf(method.getDescription()))
-                .replace(SpecialKeywords.TEST_NAME_CLASS, method.getTestClass().getRealClass().getSimpleName())
-                .trim();
+        name = getNamingPattern().render(result);
 
         LOGGER.debug("testName: {}", name);
 
@@ -117,6 +112,16 @@ public class TestNamingService {
         return testName.get();
     }
 
+    private static NamingPattern getNamingPattern() {
+        String pattern = Configuration.getRequired(ReportConfiguration.Parameter.TEST_NAMING_PATTERN);
+        NamingPattern compiledPattern = namingPattern;
+        if (compiledPattern == null || !compiledPattern.source.equals(pattern)) {
+            compiledPattern = NamingPattern.compile(pattern);
+            namingPattern = compiledPattern;
+        }
+        return compiledPattern;
+    }
+
     private static String getTestNameMap(ITestResult result) {
         String testNameMapName = result.getTestContext().getCurrentXmlTest().getName();
 
@@ -134,31 +139,14 @@ public class TestNamingService {
     private static String getMethodUID(ITestResult result) {
         String methodUID = StringUtils.EMPTY;
 
-        try {
-            ITestNGMethod testNGMethod = result.getMethod();
-
-            Parameter[] parameters = result.getTestClass()
-                    .getRealClass()
-                    .getMethod(testNGMethod.getMethodName(),
-                            testNGMethod.getParameterTypes())
-                    .getParameters();
-
-            for (int i = 0; i < parameters.length; i++) {
-                if (parameters[i].getName().equalsIgnoreCase(SpecialKeywords.TUID)) {
-                    // AUTO-274 "Pass"ing status set on emailable report when a test step fails
-                    if (result.getParameters()[i] == null) {
-                        break;
-                    }
-
-                    methodUID = result.getParameters()[i].toString();
-                    if (methodUID.contains(SpecialKeywords.TUID + ":")) {
-                        methodUID = methodUID.replace(SpecialKeywords.TUID + ":", "");
-                    }
-                    break;
-                }
+        int tuidIndex = getMethodMetadata(result).tuidIndex;
+        Object[] parameters = result.getParameters();
+        // AUTO-274 "Pass"ing status set on emailable report when a test step fails
+        if (tuidIndex >= 0 && tuidIndex < parameters.length && parameters[tuidIndex] != null) {
+            methodUID = parameters[tuidIndex].toString();
+            if (methodUID.contains(SpecialKeywords.TUID + ":")) {
+                methodUID = methodUID.replace(SpecialKeywords.TUID + ":", "");
             }
-        } catch (NoSuchMethodException e) {
-            LOGGER.error("For some reason test method not found using reflection: {}", result.getMethod().getMethodName());
         }
 
         @SuppressWarnings("unchecked")
@@ -230,12 +218,27 @@ public class TestNamingService {
         return testName;
     }
     private static int getInvocationCount(ITestResult testResult) {
-        ITestNGMethod[] methods = testResult.getTestContext().getAllTestMethods();
-        return Arrays.stream(methods)
-                     .filter(method -> method.equals(testResult.getMethod()))
-                     .findFirst()
-                     .map(ITestNGMethod::getInvocationCount)
-                     .orElse(0);
+        return getMethodMetadata(testResult).invocationCount;
+    }
+
+    /**
+     * Reflection data of the test method. Calculated once per method and stored in the test context,
+     * so it is released together with the context.
+     */
+    @SuppressWarnings("unchecked")
+    private static MethodMetadata getMethodMetadata(ITestResult result) {
+        ITestContext context = result.getTestContext();
+        Map<ITestNGMethod, MethodMetadata> metadata = (Map<ITestNGMethod, MethodMetadata>) context.getAttribute(METHOD_METADATA_ATTRIBUTE);
+        if (metadata == null) {
+            synchronized (context) {
+                metadata = (Map<ITestNGMethod, MethodMetadata>) context.getAttribute(METHOD_METADATA_ATTRIBUTE);
+                if (metadata == null) {
+                    metadata = new ConcurrentHashMap<>();
+                    context.setAttribute(METHOD_METADATA_ATTRIBUTE, metadata);
+                }
+            }
+        }
+        return metadata.computeIfAbsent(result.getMethod(), method -> MethodMetadata.create(result));
     }
     
     private static String appendDataProviderLine(ITestResult testResult, String testName) {
@@ -254,5 +257,110 @@ public class TestNamingService {
         }
         return testName;
     }
-    
+
+    private static final class MethodMetadata {
+        // index of the TUID argument, -1 if the method has no such argument
+        private final int tuidIndex;
+        // invocation count declared for the method in the test context
+        private final int invocationCount;
+
+        private MethodMetadata(int tuidIndex, int invocationCount) {
+            this.tuidIndex = tuidIndex;
+            this.invocationCount = invocationCount;
+        }
+
+        static MethodMetadata create(ITestResult result) {
+            ITestNGMethod testNGMethod = result.getMethod();
+
+            int tuidIndex = -1;
+            try {
+                Parameter[] parameters = result.getTestClass()
+                        .getRealClass()
+                        .getMethod(testNGMethod.getMethodName(), testNGMethod.getParameterTypes())
+                        .getParameters();
+                for (int i = 0; i < parameters.length; i++) {
+                    if (parameters[i].getName().equalsIgnoreCase(SpecialKeywords.TUID)) {
+                        tuidIndex = i;
+                        break;
+                    }
+                }
+            } catch (NoSuchMethodException e) {
+                LOGGER.error("For some reason test method not found using reflection: {}", testNGMethod.getMethodName());
+            }
+
+            int invocationCount = Arrays.stream(result.getTestContext().getAllTestMethods())
+                    .filter(method -> method.equals(testNGMethod))
+                    .findFirst()
+                    .map(ITestNGMethod::getInvocationCount)
+                    .orElse(0);
+            return new MethodMetadata(tuidIndex, invocationCount);
+        }
+    }
+
+    /*
+     * Test naming pattern split into the literal text and tokens.
+     * Only tokens referenced by the pattern are evaluated, so expensive ones like {tuid} and {test_name} cost nothing when not used.
+     */
+    private static final class NamingPattern {
+        private static final Map<String, Function<ITestResult, String>> TOKENS = Map.of(
+                SpecialKeywords.TEST_NAME, TestNamingService::getTestNameMap,
+                SpecialKeywords.TEST_NAME_TUID, TestNamingService::getMethodUID,
+                SpecialKeywords.METHOD_NAME, result -> result.getMethod().getMethodName(),
+                SpecialKeywords.METHOD_PRIORITY, result -> String.valueOf(result.getMethod().getPriority()),
+                SpecialKeywords.METHOD_THREAD_POOL_SIZE, result -> String.valueOf(result.getMethod().getThreadPoolSize()),
+                SpecialKeywords.METHOD_GROUP_NAMES, result -> String.join(", ", result.getMethod().getGroups()),
+                SpecialKeywords.METHOD_DESCRIPTION, result -> String.valueOf(result.getMethod().getDescription()),
+                SpecialKeywords.TEST_NAME_CLASS, result -> result.getMethod().getTestClass().getRealClass().getSimpleName());
+
+        private final String source;
+        private final List<Function<ITestResult, String>> segments;
+
+        private NamingPattern(String source, List<Function<ITestResult, String>> segments) {
+            this.source = source;
+            this.segments = segments;
+        }
+
+        static NamingPattern compile(String pattern) {
+            List<Function<ITestResult, String>> segments = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int i = 0;
+            while (i < pattern.length()) {
+                String token = pattern.charAt(i) == '{' ? findToken(pattern, i) : null;
+                if (token == null) {
+                    literal.append(pattern.charAt(i++));
+                    continue;
+                }
+                addLiteral(segments, literal);
+                segments.add(TOKENS.get(token));
+                i += token.length();
+            }
+            addLiteral(segments, literal);
+            return new NamingPattern(pattern, List.copyOf(segments));
+        }
+
+        String render(ITestResult result) {
+            StringBuilder name = new StringBuilder();
+            for (Function<ITestResult, String> segment : segments) {
+                name.append(segment.apply(result));
+            }
+            return name.toString().trim();
+        }
+
+        private static String findToken(String pattern, int start) {
+            for (String token : TOKENS.keySet()) {
+                if (pattern.startsWith(token, start)) {
+                    return token;
+                }
+            }
+            return null;
+        }
+
+        private static void addLiteral(List<Function<ITestResult, String>> segments, StringBuilder literal) {
+            if (literal.length() > 0) {
+                String text = literal.toString();
+                segments.add(result -> text);
+                literal.setLength(0);
+            }
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.utils;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Streaming 128-bit hash (MurMur3 x64 128 mixing) of the test method invocation: real class, method name and parameter values.
+ * Values are absorbed directly without intermediate strings. Class and method prefix is computed once and reused.
+ */
+final class InvocationHasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private static final int NULL_TAG = 0;
+    private static final int STRING_TAG = 1;
+    private static final int NUMBER_TAG = 2;
+    private static final int ARRAY_TAG = 3;
+    private static final int LIST_TAG = 4;
+    private static final int MAP_TAG = 5;
+    private static final int OBJECT_TAG = 6;
+
+    private long h1;
+    private long h2;
+    private long length;
+
+    private InvocationHasher(long h1, long h2, long length) {
+        this.h1 = h1;
+        this.h2 = h2;
+        this.length = length;
+    }
+
+    /**
+     * Create hasher for the method identity
+     *
+     * @param className name of the real test class
+     * @param methodName name of the test method
+     * @return prefix state, should be copied before adding parameters
+     */
+    static InvocationHasher prefix(String className, String methodName) {
+        InvocationHasher hasher = new InvocationHasher(0, 0, 0);
+        hasher.addString(className);
+        hasher.addString(methodName);
+        return hasher;
+    }
+
+    InvocationHasher copy() {
+        return new InvocationHasher(h1, h2, length);
+    }
+
+    InvocationHasher addValues(Object[] values) {
+        if (values == null) {
+            add(NULL_TAG);
+            return this;
+        }
+        add(ARRAY_TAG);
+        add(values.length);
+        for (Object value : values) {
+            addValue(value);
+        }
+        return this;
+    }
+
+    /**
+     * Finish the hash
+     *
+     * @return 128-bit hash as 32 hex characters
+     */
+    String toHex() {
+        long a = h1 ^ length;
+        long b = h2 ^ length;
+        a += b;
+        b += a;
+        a = fmix(a);
+        b = fmix(b);
+        a += b;
+        b += a;
+        return toHex(a) + toHex(b);
+    }
+
+    private void addValue(Object value) {
+        if (value == null) {
+            add(NULL_TAG);
+        } else if (value instanceof String) {
+            add(STRING_TAG);
+            addString((String) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            add(NUMBER_TAG);
+            add(value.getClass().getName().hashCode());
+            add(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            add(NUMBER_TAG);
+            add(value.getClass().getName().hashCode());
+            add(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Object[]) {
+            addValues((Object[]) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            add(LIST_TAG);
+            add(list.size());
+            for (Object item : list) {
+                addValue(item);
+            }
+        } else if (value instanceof Map) {
+            addMap((Map<?, ?>) value);
+        } else {
+            add(OBJECT_TAG);
+            add(value.getClass().getName().hashCode());
+            add(value.hashCode());
+        }
+    }
+
+    // order of the map entries is not stable, so entries are hashed separately and combined by the commutative sum
+    private void addMap(Map<?, ?> map) {
+        long sum1 = 0;
+        long sum2 = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            InvocationHasher entryHasher = new InvocationHasher(0, 0, 0);
+            entryHasher.addValue(entry.getKey());
+            entryHasher.addValue(entry.getValue());
+            sum1 += fmix(entryHasher.h1 ^ entryHasher.length);
+            sum2 += fmix(entryHasher.h2 ^ entryHasher.length);
+        }
+        add(MAP_TAG);
+        add(map.size());
+        add(sum1);
+        add(sum2);
+    }
+
+    private void addString(String value) {
+        int size = value.length();
+        add(size);
+        int i = 0;
+        for (; i + 4 <= size; i += 4) {
+            add(value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48);
+        }
+        if (i < size) {
+            long tail = 0;
+            for (int shift = 0; i < size; i++, shift += 16) {
+                tail |= (long) value.charAt(i) << shift;
+            }
+            add(tail);
+        }
+    }
+
+    private void add(long k) {
+        h1 ^= Long.rotateLeft(k * C1, 31) * C2;
+        h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+        h2 ^= Long.rotateLeft(k * C2, 33) * C1;
+        h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+        length++;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+}
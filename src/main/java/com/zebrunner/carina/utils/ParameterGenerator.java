@@ -16,11 +16,9 @@
 package com.zebrunner.carina.utils;
 
 import java.lang.invoke.MethodHandles;
-import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.zebrunner.carina.utils.config.Configuration;
 import com.zebrunner.carina.utils.config.StandardConfigurationOption;
@@ -35,84 +33,150 @@ import com.zebrunner.carina.utils.resources.L10N;
 public class ParameterGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private static final Pattern GENERATE_UUID_PATTERN = Pattern.compile(SpecialKeywords.GENERATE_UUID);
-    private static final Pattern GENERATE_PATTERN = Pattern.compile(SpecialKeywords.GENERATE);
-    private static final Pattern GENERATEAN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEAN);
-    private static final Pattern GENERATEN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEN);
-    private static final Pattern TESTDATA_PATTERN = Pattern.compile(SpecialKeywords.TESTDATA);
-    private static final Pattern ENV_PATTERN = Pattern.compile(SpecialKeywords.ENV);
-    private static final Pattern L10N_PATTERN = Pattern.compile(SpecialKeywords.L10N_PATTERN);
+    private static final String GENERATE_UUID = "generate_uuid";
+    private static final String GENERATE = "generate";
+    private static final String GENERATEAN = "generatean";
+    private static final String GENERATEN = "generaten";
+    private static final String TESTDATA = "testdata";
+    private static final String ENV = "env";
+    // resolved {env:key}, {testdata:key} and {L10N:key} placeholders, generated values are never cached
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+    // hash prefixes of the test methods by real class and method name
+    private static final ClassValue<Map<String, InvocationHasher>> HASH_PREFIXES = new ClassValue<>() {
+        @Override
+        protected Map<String, InvocationHasher> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
     private static String uuid;
 
     private ParameterGenerator() {
         // do nothing
     }
 
+    /**
+     * Replace placeholders in the parameter: {generate_uuid}, {generate:size}, {generatean:size}, {generaten:size},
+     * {env:key}, {testdata:key} and {L10N:key}. The parameter is scanned once, every placeholder is replaced.
+     *
+     * @param param parameter value
+     * @return parameter with replaced placeholders, null for the "nil" value
+     */
     public static Object process(String param) {
-        try {
-            if (param == null || param.equalsIgnoreCase("nil")) {
-                return null;
-            }
+        if (param == null || param.equalsIgnoreCase("nil")) {
+            return null;
+        }
+        int start = param.indexOf('{');
+        if (start < 0) {
+            return param;
+        }
 
-            Matcher matcher = GENERATE_UUID_PATTERN.matcher(param);
-            if (matcher.find()) {
-                return StringUtils.replace(param, matcher.group(), uuid);
+        StringBuilder result = null;
+        int copied = 0;
+        while (start >= 0) {
+            int end = param.indexOf('}', start + 1);
+            if (end < 0) {
+                break;
             }
-            matcher = GENERATE_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(':') + 1;
-                int end = param.indexOf('}');
-                int size = Integer.parseInt(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateWord(size));
+            String value = resolve(param, start + 1, end);
+            if (value == null) {
+                // not a placeholder, e.g. json or unknown token, could contain a placeholder inside
+                start = param.indexOf('{', start + 1);
+                continue;
             }
-
-            matcher = GENERATEAN_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(':') + 1;
-                int end = param.indexOf('}');
-                int size = Integer.parseInt(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateWordAN(size));
+            if (result == null) {
+                result = new StringBuilder(param.length() + 16);
             }
+            result.append(param, copied, start).append(value);
+            copied = end + 1;
+            start = param.indexOf('{', copied);
+        }
+        if (result == null) {
+            return param;
+        }
+        return result.append(param, copied, param.length()).toString();
+    }
 
-            matcher = GENERATEN_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(':') + 1;
-                int end = param.indexOf('}');
-                int size = Integer.parseInt(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateNumeric(size));
+    /**
+     * Resolve value of the placeholder
+     *
+     * @param param parameter
+     * @param from index of the first character after '{'
+     * @param to index of the '}'
+     * @return value or null if it is not a placeholder
+     */
+    private static String resolve(String param, int from, int to) {
+        int colon = param.indexOf(':', from);
+        if (colon < 0 || colon > to) {
+            return GENERATE_UUID.equals(param.substring(from, to)) ? uuid : null;
+        }
+        String name = param.substring(from, colon);
+        String argument = param.substring(colon + 1, to);
+        try {
+            switch (name) {
+            case GENERATE:
+                return StringUtils.isNumeric(argument) ? StringGenerator.generateWord(Integer.parseInt(argument)) : null;
+            case GENERATEAN:
+                return StringUtils.isNumeric(argument) ? StringGenerator.generateWordAN(Integer.parseInt(argument)) : null;
+            case GENERATEN:
+                return StringUtils.isNumeric(argument) ? StringGenerator.generateNumeric(Integer.parseInt(argument)) : null;
+            case ENV:
+                return resolveCached(param.substring(from, to) + '@' + Configuration.get(Configuration.Parameter.ENV).orElse(""),
+                        name, argument);
+            case TESTDATA:
+                return resolveCached(param.substring(from, to), name, argument);
+            case SpecialKeywords.L10N:
+                return resolveCached(param.substring(from, to) + '@' + L10N.getLocale(), name, argument);
+            default:
+                return null;
             }
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage());
+            return null;
+        }
+    }
 
-            matcher = ENV_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(':') + 1;
-                int end = param.indexOf('}');
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), Configuration.get(key, StandardConfigurationOption.ENVIRONMENT).orElse(""));
+    /**
+     * Resolve deterministic placeholder using the run-scoped cache.
+     * While the current test has overridden properties (R.*.put(key, value, true)) the cache is bypassed,
+     * so overrides are visible immediately and cached values become valid again after R.*.clearTestProperties().
+     *
+     * @param cacheKey placeholder without braces, for env also the current environment, for L10N also the current locale
+     * @param name placeholder name
+     * @param argument placeholder argument
+     * @return value
+     */
+    private static String resolveCached(String cacheKey, String name, String argument) {
+        if (!R.CONFIG.getTestProperties().isEmpty()) {
+            return lookup(name, argument);
+        }
+        String value = CACHE.get(cacheKey);
+        if (value == null) {
+            value = lookup(name, argument);
+            if (value != null) {
+                CACHE.put(cacheKey, value);
             }
+        }
+        return value;
+    }
 
-            matcher = TESTDATA_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(':') + 1;
-                int end = param.indexOf('}');
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), R.TESTDATA.get(key));
-            }
-            matcher = L10N_PATTERN.matcher(param);
-            String initStrL10N = param;
-            while (matcher.find()) {
-                int start = param.indexOf(SpecialKeywords.L10N + ":") + 5;
-                int end = param.indexOf('}');
-                String key = param.substring(start, end);
-                param = StringUtils.replace(param, matcher.group(), L10N.getText(key));
-            }
-            // in case if L10N pattern was applied
-            if (!initStrL10N.equalsIgnoreCase(param)) {
-                return param;
-            }
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage());
+    private static String lookup(String name, String argument) {
+        switch (name) {
+        case ENV:
+            return Configuration.get(argument, StandardConfigurationOption.ENVIRONMENT).orElse("");
+        case TESTDATA:
+            return R.TESTDATA.get(argument);
+        default:
+            return L10N.getText(argument);
         }
-        return param;
+    }
+
+    /**
+     * Clear cached values of {env:key}, {testdata:key} and {L10N:key} placeholders.
+     * Cache is cleared on the suite start, should be also called after global properties or localization resources
+     * are changed in runtime.
+     */
+    public static void clearCache() {
+        CACHE.clear();
     }
 
     public static void processMap(Map<String, String> paramsMap) {
@@ -141,17 +205,19 @@ public class ParameterGenerator {
     }
 
     /**
-     * Generate hash by class name, method name and arg values.
+     * Generate 128-bit hash by class name, method name and arg values.
+     * Strings, numbers, lists, maps and arrays are hashed by their content, other arguments by hashCode().
      *
      * @param args Object[] test method arguments
      * @param method ITestNGMethod
-     * @return String hash
+     * @return String hash, 32 hex characters
      */
     public static String hash(Object[] args, ITestNGMethod method) {
-        String toHash = "";
-        toHash += Arrays.hashCode(args);
-        toHash += method.getMethodName();
-        toHash += (method.getRealClass());
-        return String.valueOf(toHash.hashCode());
+        Class<?> realClass = method.getRealClass();
+        InvocationHasher prefix = HASH_PREFIXES.get(realClass)
+                .computeIfAbsent(method.getMethodName(), methodName -> InvocationHasher.prefix(realClass.getName(), methodName));
+        return prefix.copy()
+                .addValues(args)
+                .toHex();
     }
 }
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.filter;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.testng.Assert;
+import org.testng.IAttributes;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+import org.testng.internal.Attributes;
+import org.testng.internal.ConstructorOrMethod;
+
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
+
+/**
+ * Tests for {@link SuiteTestFilter}
+ */
+public class SuiteTestFilterTest {
+
+    @Test
+    public void testMethodsAreDisabled() {
+        Map<String, Integer> invocationCounts = new ConcurrentHashMap<>();
+        List<TestMethodAttributes> methods = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            methods.add(TestMethodAttributes.of(createMethod("test" + i, invocationCounts)));
+        }
+
+        List<ITestNGMethod> disabled = SuiteTestFilter.disable(methods,
+                attributes -> Integer.parseInt(attributes.getMethod().getMethodName().substring(4)) % 2 == 0);
+
+        Assert.assertEquals(disabled.size(), 500);
+        Assert.assertEquals(disabled.get(1).getMethodName(), "test3", "Disabled methods should keep the suite order");
+        Assert.assertEquals(invocationCounts.size(), 500);
+        Assert.assertEquals(invocationCounts.get("test1"), Integer.valueOf(0));
+        Assert.assertFalse(invocationCounts.containsKey("test2"));
+        Assert.assertEquals(methods.get(3).getQualifiedName(), "SuiteTestFilterTest#test3");
+    }
+
+    @Test
+    public void testFilterIsAppliedOncePerSuite() {
+        IAttributes suite = new Attributes();
+        List<TestMethodAttributes> methods = createMethods(10);
+        AtomicInteger checks = new AtomicInteger();
+        ISuiteMethodFilter filter = new CountingFilter(checks);
+
+        SuiteTestFilter.apply(suite, () -> methods, type -> Optional.empty(), filter);
+        SuiteTestFilter.apply(suite, () -> methods, type -> Optional.empty(), filter);
+
+        Assert.assertEquals(checks.get(), methods.size(), "Filter of the listener should be applied once per suite");
+    }
+
+    @Test
+    public void testLinkedFilterIsAppliedInTheSamePass() {
+        IAttributes suite = new Attributes();
+        List<TestMethodAttributes> methods = createMethods(10);
+        AtomicInteger checks = new AtomicInteger();
+        AtomicInteger linkedChecks = new AtomicInteger();
+        ISuiteMethodFilter filter = new CountingFilter(checks);
+        ISuiteMethodFilter linked = new LinkedFilter(linkedChecks);
+
+        SuiteTestFilter.apply(suite, () -> methods, type -> type == LinkedFilter.class ? Optional.of(linked) : Optional.empty(), filter,
+                LinkedFilter.class);
+        SuiteTestFilter.apply(suite, () -> methods, type -> Optional.of(filter), linked, CountingFilter.class);
+
+        Assert.assertEquals(checks.get(), methods.size());
+        Assert.assertEquals(linkedChecks.get(), methods.size(), "Linked filter should be applied once by the first listener");
+    }
+
+    @Test
+    public void testFailingLinkedFilterIsAppliedByItsListener() {
+        IAttributes suite = new Attributes();
+        List<TestMethodAttributes> methods = createMethods(10);
+        AtomicInteger checks = new AtomicInteger();
+        ISuiteMethodFilter filter = new CountingFilter(checks);
+        ISuiteMethodFilter failing = new FailingFilter();
+
+        SuiteTestFilter.apply(suite, () -> methods, type -> Optional.of(failing), filter, FailingFilter.class);
+        Assert.assertEquals(checks.get(), methods.size(), "Misconfigured linked filter should not fail the other listener");
+
+        Assert.assertThrows(IllegalStateException.class,
+                () -> SuiteTestFilter.apply(suite, () -> methods, type -> Optional.of(filter), failing, CountingFilter.class));
+    }
+
+    private static List<TestMethodAttributes> createMethods(int count) {
+        Map<String, Integer> invocationCounts = new ConcurrentHashMap<>();
+        List<TestMethodAttributes> methods = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            methods.add(TestMethodAttributes.of(createMethod("test" + i, invocationCounts)));
+        }
+        return methods;
+    }
+
+    private static ITestNGMethod createMethod(String name, Map<String, Integer> invocationCounts) {
+        return (ITestNGMethod) Proxy.newProxyInstance(SuiteTestFilterTest.class.getClassLoader(), new Class<?>[] { ITestNGMethod.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getMethodName":
+                        return name;
+                    case "getRealClass":
+                        return SuiteTestFilterTest.class;
+                    case "getConstructorOrMethod":
+                        return new ConstructorOrMethod(SuiteTestFilterTest.class.getDeclaredMethod("testMethodsAreDisabled"));
+                    case "setInvocationCount":
+                        invocationCounts.put(name, (Integer) args[0]);
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static class CountingFilter implements ISuiteMethodFilter {
+        private final AtomicInteger checks;
+
+        private CountingFilter(AtomicInteger checks) {
+            this.checks = checks;
+        }
+
+        @Override
+        public Optional<Predicate<TestMethodAttributes>> getMethodFilter() {
+            // performs all methods, so the real suite is not changed
+            return Optional.of(attributes -> checks.incrementAndGet() > 0);
+        }
+    }
+
+    private static final class LinkedFilter extends CountingFilter {
+        private LinkedFilter(AtomicInteger checks) {
+            super(checks);
+        }
+    }
+
+    private static final class FailingFilter implements ISuiteMethodFilter {
+        @Override
+        public Optional<Predicate<TestMethodAttributes>> getMethodFilter() {
+            throw new IllegalStateException("Required filter parameter is missing");
+        }
+    }
+}
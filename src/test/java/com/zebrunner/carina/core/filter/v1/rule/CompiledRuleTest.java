@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.filter.v1.rule;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+import org.testng.internal.ConstructorOrMethod;
+
+import com.zebrunner.carina.core.filter.v1.IncorrectFilterException;
+import com.zebrunner.carina.core.registrar.ownership.MethodOwner;
+import com.zebrunner.carina.core.registrar.tag.Priority;
+import com.zebrunner.carina.core.registrar.tag.TestPriority;
+import com.zebrunner.carina.core.registrar.tag.TestTag;
+import com.zebrunner.carina.core.testng.TestMethodAttributes;
+
+/**
+ * Tests for {@link CompiledRule}
+ */
+public class CompiledRuleTest {
+
+    private static final List<String> RULES = List.of(
+            "PRIORITY=>P1",
+            "PRIORITY=>!!P1",
+            "PRIORITY=>P2||P1",
+            "PRIORITY=>P2||P3&&!!P1",
+            "PRIORITY=>P1&amp;&amp;!!P2||P3",
+            "OWNER=>msarychau",
+            "OWNER=>qpsdemo&&!!msarychau",
+            "OWNER=>!!qpsdemo||msarychau",
+            "TAGS=>feature=reg",
+            "TAGS=>feature=reg&&!!tag1=temp",
+            "PRIORITY=>P1;;OWNER=>!!msarychau",
+            "PRIORITY=>!!P0;;OWNER=>qpsdemo||msarychau;;TAGS=>!!feature=web");
+
+    @Test
+    public void testCompiledRulesMatchRuleCheck() {
+        List<ITestNGMethod> methods = createMethods();
+        for (String ruleStr : RULES) {
+            List<CompiledRule> rules = CompiledRule.compile(ruleStr);
+            for (ITestNGMethod method : methods) {
+                boolean expected = rules.stream()
+                        .allMatch(rule -> rule.getRule().getTestFilter().isPerform(method, rule.getRule().getRuleExpression()));
+                Assert.assertEquals(isPerform(rules, method), expected,
+                        String.format("Rule '%s' for method '%s', compiled as %s", ruleStr, method.getMethodName(), rules));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledPlan() {
+        Assert.assertEquals(CompiledRule.compile("PRIORITY=>P2||P3&&!!P1;;TAGS=>feature=reg").toString(),
+                "[PRIORITY => ((P2 || P3) && !!P1), TAGS => feature=reg]");
+    }
+
+    @Test(expectedExceptions = IncorrectFilterException.class)
+    public void testUnknownFilter() {
+        CompiledRule.compile("COLOR=>red");
+    }
+
+    @Test
+    public void testLargeSuiteFiltering() {
+        List<CompiledRule> rules = CompiledRule.compile(RULES.get(RULES.size() - 1));
+        List<ITestNGMethod> methods = new ArrayList<>();
+        for (int i = 0; i < 10_000 / 4; i++) {
+            methods.addAll(createMethods());
+        }
+        long performed = methods.stream().filter(method -> isPerform(rules, method)).count();
+        // only priorityOwnerTag satisfies all three rules
+        Assert.assertEquals(performed, 10_000 / 4);
+    }
+
+    private static boolean isPerform(List<CompiledRule> rules, ITestNGMethod method) {
+        TestMethodAttributes attributes = TestMethodAttributes.of(method);
+        return rules.stream().allMatch(rule -> rule.isPerform(attributes));
+    }
+
+    private static List<ITestNGMethod> createMethods() {
+        List<ITestNGMethod> methods = new ArrayList<>();
+        for (String name : List.of("notAnnotated", "priorityOwnerTag", "multipleOwnersTags", "otherPriority")) {
+            try {
+                methods.add(createMethod(AnnotatedTests.class.getDeclaredMethod(name)));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return methods;
+    }
+
+    private static ITestNGMethod createMethod(Method method) {
+        ConstructorOrMethod constructorOrMethod = new ConstructorOrMethod(method);
+        return (ITestNGMethod) Proxy.newProxyInstance(CompiledRuleTest.class.getClassLoader(), new Class<?>[] { ITestNGMethod.class },
+                (proxy, invokedMethod, args) -> {
+                    switch (invokedMethod.getName()) {
+                    case "getConstructorOrMethod":
+                        return constructorOrMethod;
+                    case "getMethodName":
+                        return method.getName();
+                    case "getRealClass":
+                        return method.getDeclaringClass();
+                    default:
+                        throw new UnsupportedOperationException(invokedMethod.getName());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unused")
+    private static class AnnotatedTests {
+
+        void notAnnotated() {
+        }
+
+        @TestPriority(Priority.P1)
+        @MethodOwner(owner = "msarychau")
+        @TestTag(name = "feature", value = "reg")
+        void priorityOwnerTag() {
+        }
+
+        @TestPriority(Priority.P3)
+        @MethodOwner(owner = "qpsdemo")
+        @MethodOwner(owner = "msarychau")
+        @TestTag(name = "feature", value = "web")
+        @TestTag(name = "tag1", value = "temp")
+        void multipleOwnersTags() {
+        }
+
+        @TestPriority(Priority.P0)
+        @MethodOwner(owner = "qpsdemo")
+        void otherPriority() {
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.listeners;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.zebrunner.carina.core.report.ScreenshotStore;
+import com.zebrunner.carina.core.report.TestArtifactManifest;
+import com.zebrunner.carina.webdriver.ScreenshotType;
+import com.zebrunner.carina.webdriver.screenshot.IScreenshotRule;
+
+/**
+ * Tests for {@link FailureScreenshots}
+ */
+public class FailureScreenshotsTest {
+
+    private Path testDirectory;
+
+    @BeforeMethod
+    public void createTestDirectory() throws IOException {
+        testDirectory = Files.createTempDirectory("failure-screenshots");
+    }
+
+    @AfterMethod
+    public void deleteTestDirectory() throws IOException {
+        FileUtils.deleteDirectory(testDirectory.toFile());
+    }
+
+    @Test
+    public void testScreenshotsAreCapturedConcurrently() throws Exception {
+        byte[] image = createImage(20, 40);
+        List<byte[]> uploaded = new CopyOnWriteArrayList<>();
+        List<WebDriver> drivers = List.of(createDriver(image, 500), createDriver(image, 500), createDriver(image, 500));
+
+        long start = System.nanoTime();
+        List<Future<Path>> writes = FailureScreenshots.capture(drivers, createRule(Duration.ofSeconds(5), null), testDirectory, null,
+                (bytes, timestamp) -> uploaded.add(bytes));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue(elapsed < 1_200, "Latency should be the slowest capture instead of the sum, elapsed " + elapsed + " ms");
+        Assert.assertEquals(uploaded.size(), 3);
+        Assert.assertEquals(writes.size(), 3);
+        for (Future<Path> write : writes) {
+            Assert.assertEquals(Files.readAllBytes(write.get(5, TimeUnit.SECONDS)), image);
+        }
+    }
+
+    @Test
+    public void testHangingCaptureIsAbandonedAfterTimeout() {
+        byte[] image = createImage(20, 40);
+        List<WebDriver> drivers = List.of(createDriver(image, 10_000), createDriver(image, 0));
+
+        long start = System.nanoTime();
+        List<Future<Path>> writes = FailureScreenshots.capture(drivers, createRule(Duration.ofSeconds(1), null), testDirectory, null,
+                (bytes, timestamp) -> {
+                });
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue(elapsed < 3_000, "Hanging capture should be abandoned after the rule timeout, elapsed " + elapsed + " ms");
+        Assert.assertEquals(writes.size(), 1);
+    }
+
+    @Test
+    public void testScreenshotIsResizedByRule() throws Exception {
+        List<byte[]> uploaded = new CopyOnWriteArrayList<>();
+        FailureScreenshots.capture(List.of(createDriver(createImage(20, 40), 0)),
+                createRule(Duration.ofSeconds(5), new ImmutablePair<>(10, 10)), testDirectory, null, (bytes, timestamp) -> uploaded.add(bytes));
+
+        BufferedImage resized = ImageIO.read(new ByteArrayInputStream(uploaded.get(0)));
+        Assert.assertEquals(resized.getWidth(), 10);
+        Assert.assertEquals(resized.getHeight(), 10);
+    }
+
+    @Test
+    public void testIdenticalScreenshotsAreStoredOnce() throws Exception {
+        byte[] image = createImage(20, 40);
+        ScreenshotStore store = new ScreenshotStore(testDirectory.resolve(ScreenshotStore.STORE_DIRECTORY_NAME));
+        Path currentTestDirectory = Files.createDirectories(testDirectory.resolve("test"));
+
+        List<Future<Path>> writes = FailureScreenshots.capture(List.of(createDriver(image, 0), createDriver(image, 0)),
+                createRule(Duration.ofSeconds(5), null), currentTestDirectory, store, (bytes, timestamp) -> {
+                });
+
+        Assert.assertEquals(writes.get(0).get(5, TimeUnit.SECONDS), writes.get(1).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(FileUtils.listFiles(testDirectory.toFile(), null, true).size(), 1);
+        Assert.assertEquals(TestArtifactManifest.remove(currentTestDirectory).getImages(),
+                List.of("../" + ScreenshotStore.STORE_DIRECTORY_NAME + "/" + writes.get(0).get().getFileName()));
+    }
+
+    @Test
+    public void testPageLoadTimeoutOfDriverIsRestored() {
+        List<Duration> pageLoadTimeouts = new CopyOnWriteArrayList<>(List.of(Duration.ofSeconds(42)));
+        WebDriver.Timeouts timeouts = (WebDriver.Timeouts) Proxy.newProxyInstance(FailureScreenshotsTest.class.getClassLoader(),
+                new Class<?>[] { WebDriver.Timeouts.class }, (proxy, method, args) -> {
+                    if ("getPageLoadTimeout".equals(method.getName())) {
+                        return pageLoadTimeouts.get(pageLoadTimeouts.size() - 1);
+                    }
+                    pageLoadTimeouts.add((Duration) args[0]);
+                    return proxy;
+                });
+        WebDriver.Options options = (WebDriver.Options) Proxy.newProxyInstance(FailureScreenshotsTest.class.getClassLoader(),
+                new Class<?>[] { WebDriver.Options.class }, (proxy, method, args) -> timeouts);
+        byte[] image = createImage(20, 40);
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(FailureScreenshotsTest.class.getClassLoader(),
+                new Class<?>[] { WebDriver.class, TakesScreenshot.class },
+                (proxy, method, args) -> "manage".equals(method.getName()) ? options : image);
+
+        FailureScreenshots.capture(List.of(driver), createRule(Duration.ofSeconds(5), null), testDirectory, null,
+                (bytes, timestamp) -> {
+                });
+
+        Assert.assertEquals(pageLoadTimeouts, List.of(Duration.ofSeconds(42), Duration.ofSeconds(5), Duration.ofSeconds(42)),
+                "Rule timeout should be applied for the capture and the page load timeout of the driver restored");
+    }
+
+    @Test
+    public void testDeadSessionIsNotCaptured() {
+        List<byte[]> uploaded = new CopyOnWriteArrayList<>();
+        WebDriver deadDriver = (WebDriver) Proxy.newProxyInstance(FailureScreenshotsTest.class.getClassLoader(),
+                new Class<?>[] { WebDriver.class, TakesScreenshot.class }, (proxy, method, args) -> {
+                    throw new NoSuchSessionException("Session ID is null. Using WebDriver after calling quit()?");
+                });
+
+        List<Future<Path>> writes = FailureScreenshots.capture(List.of(deadDriver, deadDriver), createRule(Duration.ofSeconds(5), null),
+                testDirectory, null, (bytes, timestamp) -> uploaded.add(bytes));
+
+        Assert.assertTrue(writes.isEmpty());
+        Assert.assertTrue(uploaded.isEmpty());
+    }
+
+    @Test
+    public void testFailedWriteIsNotAddedToManifest() throws Exception {
+        Path missingDirectory = testDirectory.resolve("missing");
+
+        List<Future<Path>> writes = FailureScreenshots.capture(List.of(createDriver(createImage(20, 40), 0)),
+                createRule(Duration.ofSeconds(5), null), missingDirectory, null, (bytes, timestamp) -> {
+                });
+
+        Assert.assertThrows(ExecutionException.class, () -> writes.get(0).get(5, TimeUnit.SECONDS));
+        Assert.assertFalse(TestArtifactManifest.remove(missingDirectory).hasScreenshots());
+    }
+
+    private static byte[] createImage(int width, int height) {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static WebDriver createDriver(byte[] image, long captureMillis) {
+        return (WebDriver) Proxy.newProxyInstance(FailureScreenshotsTest.class.getClassLoader(),
+                new Class<?>[] { WebDriver.class, TakesScreenshot.class }, (proxy, method, args) -> {
+                    if ("getScreenshotAs".equals(method.getName()) && args[0] == OutputType.BYTES) {
+                        Thread.sleep(captureMillis);
+                        return image;
+                    }
+                    if ("toString".equals(method.getName())) {
+                        return "fake driver";
+                    }
+                    // page load timeout is not supported, like by appium drivers
+                    throw new UnsupportedCommandException(method.getName());
+                });
+    }
+
+    private static IScreenshotRule createRule(Duration timeout, ImmutablePair<Integer, Integer> dimensions) {
+        return new IScreenshotRule() {
+            @Override
+            public ScreenshotType getScreenshotType() {
+                return ScreenshotType.UNSUCCESSFUL_DRIVER_ACTION;
+            }
+
+            @Override
+            public boolean isTakeScreenshot() {
+                return true;
+            }
+
+            @Override
+            public boolean isAllowFullSize() {
+                return false;
+            }
+
+            @Override
+            public ImmutablePair<Integer, Integer> getImageResizeDimensions() {
+                return dimensions;
+            }
+
+            @Override
+            public Duration getTimeout() {
+                return timeout;
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.listeners;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link SuiteFileAttributes}
+ */
+public class SuiteFileAttributesTest {
+
+    @Test
+    public void testRootAttributesAreReadWithoutParsingWholeFile() throws IOException {
+        Path suiteFile = Files.createTempFile("suite", ".xml");
+        try {
+            try (Writer writer = Files.newBufferedWriter(suiteFile, StandardCharsets.UTF_8)) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                writer.write("<!DOCTYPE suite SYSTEM \"https://testng.org/testng-1.0.dtd\">\n");
+                writer.write("<!-- generated suite -->\n");
+                writer.write("<suite verbose=\"1\" name=\"Generated &amp; big\" thread-count=\"3\" data-provider-thread-count=\"7\">\n");
+                for (int i = 0; i < 10_000; i++) {
+                    writer.write("<test name=\"test " + i + "\"><classes><class name=\"com.example.Test" + i + "\"/></classes></test>\n");
+                }
+                // the rest of the file is not read, so even the broken markup does not matter
+                writer.write("<unclosed>");
+            }
+
+            Map<String, String> attributes = SuiteFileAttributes.getRootAttributes(suiteFile.toString());
+            Assert.assertEquals(attributes.get("name"), "Generated & big");
+            Assert.assertEquals(attributes.get("thread-count"), "3");
+            Assert.assertEquals(attributes.get("data-provider-thread-count"), "7");
+
+            Files.delete(suiteFile);
+            Assert.assertSame(SuiteFileAttributes.getRootAttributes(suiteFile.toString()), attributes,
+                    "Attributes should be cached per suite file");
+        } finally {
+            Files.deleteIfExists(suiteFile);
+        }
+    }
+
+    @Test
+    public void testMissingFile() {
+        Assert.assertTrue(SuiteFileAttributes.getRootAttributes("not-existing-suite.xml").isEmpty());
+    }
+}
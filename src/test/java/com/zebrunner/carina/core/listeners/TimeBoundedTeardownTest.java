@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.listeners;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link TimeBoundedTeardown}
+ */
+public class TimeBoundedTeardownTest {
+
+    @Test
+    public void testActionsRunConcurrently() {
+        int actionsCount = 8;
+        CountDownLatch allStarted = new CountDownLatch(actionsCount);
+        Map<String, Runnable> actions = new LinkedHashMap<>();
+        for (int i = 0; i < actionsCount; i++) {
+            actions.put("driver-" + i, () -> {
+                allStarted.countDown();
+                await(allStarted);
+            });
+        }
+
+        Map<String, String> failures = new TimeBoundedTeardown(actionsCount, 5, 10, TimeUnit.SECONDS).run(actions);
+        Assert.assertTrue(failures.isEmpty(), "Actions waiting for each other should finish when run concurrently: " + failures);
+    }
+
+    @Test
+    public void testHangingAndFailedActionsAreReported() {
+        CountDownLatch never = new CountDownLatch(1);
+        Map<String, Runnable> actions = new LinkedHashMap<>();
+        actions.put("hanging", () -> await(never));
+        actions.put("failed", () -> {
+            throw new IllegalStateException("session not found");
+        });
+        actions.put("stopped", () -> {
+        });
+
+        long start = System.nanoTime();
+        Map<String, String> failures = new TimeBoundedTeardown(4, 1, 10, TimeUnit.SECONDS).run(actions);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(failures.keySet(), Set.of("hanging", "failed"));
+        Assert.assertEquals(failures.get("failed"), "session not found");
+        Assert.assertTrue(elapsed < 5_000, "Hanging action should be abandoned after its timeout, elapsed " + elapsed + " ms");
+    }
+
+    @Test
+    public void testDeadlineLimitsQueuedActions() {
+        CountDownLatch never = new CountDownLatch(1);
+        Map<String, Runnable> actions = new LinkedHashMap<>();
+        actions.put("first", () -> await(never));
+        actions.put("second", () -> await(never));
+
+        long start = System.nanoTime();
+        Map<String, String> failures = new TimeBoundedTeardown(1, 10, 1, TimeUnit.SECONDS).run(actions);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(failures.get("second"), "not started before the deadline");
+        Assert.assertTrue(elapsed < 5_000, "Teardown should not exceed the deadline, elapsed " + elapsed + " ms");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
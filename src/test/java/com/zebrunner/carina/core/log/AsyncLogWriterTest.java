@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.Level;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link AsyncLogWriter} and {@link LogRingBuffer}
+ */
+public class AsyncLogWriterTest {
+
+    private static final int THREADS = 8;
+    private static final int LINES_PER_THREAD = 500;
+
+    @Test
+    public void testRingBufferWrapAround() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        Assert.assertEquals(buffer.capacity(), 4);
+
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                Assert.assertTrue(buffer.offer(i), "Element should be accepted by not full buffer");
+            }
+            Assert.assertFalse(buffer.offer(4), "Full buffer should reject element");
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals(buffer.poll(), Integer.valueOf(i));
+            }
+            Assert.assertNull(buffer.poll());
+            Assert.assertTrue(buffer.isEmpty());
+        }
+    }
+
+    @Test
+    public void testBlockPolicyKeepsOrderPerThread() throws Exception {
+        verifyOrderPerThread(OverflowPolicy.BLOCK);
+    }
+
+    @Test
+    public void testSpillPolicyKeepsOrderPerThread() throws Exception {
+        verifyOrderPerThread(OverflowPolicy.SPILL);
+    }
+
+    private void verifyOrderPerThread(OverflowPolicy policy) throws Exception {
+        Path root = Files.createTempDirectory("async-log");
+        try {
+            AsyncLogWriter writer = new AsyncLogWriter(16, policy, new TestLogFileRegistry(), TestLogFileType.STREAM, null);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Path testDirectory = Files.createDirectory(root.resolve("test-" + t));
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < LINES_PER_THREAD; i++) {
+                        writer.enqueue(testDirectory, Level.INFO, i + "\n", null);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            writer.flush();
+
+            for (int t = 0; t < THREADS; t++) {
+                List<String> lines = readLines(root.resolve("test-" + t).resolve("test.log"));
+                Assert.assertEquals(lines.size(), LINES_PER_THREAD, "All lines should be flushed by the barrier");
+                for (int i = 0; i < LINES_PER_THREAD; i++) {
+                    Assert.assertEquals(lines.get(i), String.valueOf(i), "Lines order is broken");
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(root.toFile());
+        }
+    }
+
+    private List<String> readLines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
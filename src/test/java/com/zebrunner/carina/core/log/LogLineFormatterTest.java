@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.slf4j.MDC;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link LogLineFormatter}
+ */
+public class LogLineFormatterTest {
+
+    private static final DateTimeFormatter LOG_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss");
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    public void testOutputIsTheSameAsLegacyFormat() {
+        LogEvent[] events = {
+                createEvent(Level.INFO, new SimpleMessage("simple message")),
+                createEvent(Level.DEBUG, new ParameterizedMessage("driver {} started in {} ms", "chrome", 1500)),
+                createEvent(Level.ERROR, new SimpleMessage("non-ascii message: éè 中文")),
+                createEvent(Level.WARN, new SimpleMessage(""))
+        };
+
+        LogLineFormatter formatter = LogLineFormatter.get();
+        for (LogEvent event : events) {
+            String expected = toLegacyLogLine(event);
+            Assert.assertEquals(formatter.format(event).toString(), expected);
+
+            ByteBuffer bytes = formatter.encode();
+            Assert.assertEquals(Arrays.copyOfRange(bytes.array(), 0, bytes.limit()), expected.getBytes(Charset.defaultCharset()));
+        }
+        Assert.assertEquals(MDC.get("threadId"), "-" + Thread.currentThread().getId());
+    }
+
+    @Test
+    public void testFormattingIsGarbageFree() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            throw new SkipException("Thread allocation counters are not supported by this JVM");
+        }
+        LogEvent event = createEvent(Level.INFO, new ParameterizedMessage("click on element '{}'", "loginButton"));
+        LogLineFormatter formatter = LogLineFormatter.get();
+
+        // warm up both paths before measurement
+        measureAllocatedBytes(() -> toLegacyLogLine(event));
+        measureAllocatedBytes(() -> {
+            formatter.format(event);
+            formatter.encode();
+        });
+
+        long legacyBytes = measureAllocatedBytes(() -> toLegacyLogLine(event));
+        long formatterBytes = measureAllocatedBytes(() -> {
+            formatter.format(event);
+            formatter.encode();
+        });
+
+        Assert.assertTrue(formatterBytes * 20 < legacyBytes,
+                String.format("Formatter allocated %d bytes vs %d bytes of the legacy formatting", formatterBytes, legacyBytes));
+    }
+
+    private long measureAllocatedBytes(Runnable action) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private LogEvent createEvent(Level level, org.apache.logging.log4j.message.Message message) {
+        return Log4jLogEvent.newBuilder()
+                .setLevel(level)
+                .setMessage(message)
+                .setTimeMillis(System.currentTimeMillis())
+                .build();
+    }
+
+    // previous ThreadLogAppender.toLogLine implementation
+    private String toLegacyLogLine(LogEvent event) {
+        String logTime = LocalDateTime.ofEpochSecond(event.getInstant().getEpochSecond(),
+                event.getInstant().getNanoOfSecond(),
+                ZoneOffset.UTC)
+                .format(LOG_TIME_FORMATTER);
+
+        long threadId = Thread.currentThread().getId();
+        MDC.put("threadId", "-" + threadId);
+        String logLevel = event.getLevel().toString();
+
+        String logMessage = event.getMessage() != null
+                ? event.getMessage().getFormattedMessage()
+                : "";
+
+        return "[" + logTime + "] " + "[" + threadId + "] " + "[" + logLevel + "] " + logMessage + "\n";
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link TestEventEncoder} and {@link TestEventLogReader}
+ */
+public class TestEventLogReaderTest {
+
+    @Test
+    public void testEventsAreReadInWriteOrder() throws IOException {
+        Path directory = Files.createTempDirectory("event-log");
+        try {
+            List<TestEvent> events = Arrays.asList(
+                    new TestEvent("INFO", 1_700_000_000_123_456_789L, 1, "com.example.LoginTest", "open login page"),
+                    new TestEvent("ERROR", 1_700_000_001_000_000_000L, 25, null, "non-ascii message: éè 中文"),
+                    new TestEvent("DEBUG", 1_700_000_002_000_000_000L, 25, "R", ""));
+
+            TestLogFileRegistry registry = new TestLogFileRegistry(TestEventLogReader.EVENT_LOG_FILE_NAME);
+            for (TestEvent event : events) {
+                registry.acquire(directory, TestLogFileType.STREAM, false).write(TestEventEncoder.get().encode(event));
+            }
+            registry.closeAll();
+
+            List<TestEvent> readEvents = TestEventLogReader.readAll(directory.resolve(TestEventLogReader.EVENT_LOG_FILE_NAME));
+            Assert.assertEquals(readEvents.size(), events.size());
+            for (int i = 0; i < events.size(); i++) {
+                assertEvent(readEvents.get(i), events.get(i));
+            }
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testIncompleteRecordIsIgnored() throws IOException {
+        Path directory = Files.createTempDirectory("event-log");
+        try {
+            TestEvent event = new TestEvent("WARN", 1_700_000_000_000_000_000L, 7, "R", "complete record");
+            ByteBuffer record = TestEventEncoder.get().encode(event);
+            byte[] bytes = Arrays.copyOf(record.array(), record.limit() * 2 - 3);
+            // second record is cut in the middle
+            System.arraycopy(record.array(), 0, bytes, record.limit(), record.limit() - 3);
+
+            Path file = directory.resolve(TestEventLogReader.EVENT_LOG_FILE_NAME);
+            Files.write(file, bytes);
+
+            List<TestEvent> readEvents = TestEventLogReader.readAll(file);
+            Assert.assertEquals(readEvents.size(), 1);
+            assertEvent(readEvents.get(0), event);
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    private void assertEvent(TestEvent actual, TestEvent expected) {
+        Assert.assertEquals(actual.getLevel(), expected.getLevel());
+        Assert.assertEquals(actual.getEpochNanos(), expected.getEpochNanos());
+        Assert.assertEquals(actual.getThreadId(), expected.getThreadId());
+        Assert.assertEquals(actual.getLoggerName(), expected.getLoggerName() == null ? "" : expected.getLoggerName());
+        Assert.assertEquals(actual.getMessage(), expected.getMessage());
+    }
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link TestLogFile} implementations
+ */
+public class TestLogFileTest {
+
+    @Test
+    public void testMappedFileIsTruncatedOnClose() throws IOException {
+        Path directory = Files.createTempDirectory("mapped-log");
+        try {
+            Path file = directory.resolve("test.log");
+            TestLogFile testLogFile = new MappedTestLogFile(file);
+            Assert.assertTrue(testLogFile.write(encode("first line\n")));
+            Assert.assertTrue(testLogFile.write(encode("second line\n")));
+            Assert.assertEquals(Files.size(file), MappedTestLogFile.CHUNK_SIZE, "Chunk should be preallocated");
+            testLogFile.close();
+
+            Assert.assertFalse(testLogFile.write(encode("ignored line\n")), "Closed file should reject the line");
+            Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "first line\nsecond line\n");
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testMappedFileIsTruncatedOnFlush() throws IOException {
+        Path directory = Files.createTempDirectory("mapped-log");
+        try {
+            Path file = directory.resolve("test.log");
+            TestLogFile testLogFile = new MappedTestLogFile(file);
+            testLogFile.write(encode("first line\n"));
+            testLogFile.flush();
+            Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "first line\n");
+
+            testLogFile.write(encode("second line\n"));
+            testLogFile.close();
+            Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "first line\nsecond line\n");
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testMappedFileAppendsAfterReopen() throws IOException {
+        Path directory = Files.createTempDirectory("mapped-log");
+        try {
+            Path file = directory.resolve("test.log");
+            TestLogFile testLogFile = new MappedTestLogFile(file);
+            testLogFile.write(encode("first line\n"));
+            testLogFile.close();
+
+            testLogFile = new MappedTestLogFile(file);
+            Assert.assertEquals(testLogFile.getWrittenBytes(), "first line\n".length());
+            // line bigger than the chunk is mapped by its own size
+            String bigLine = "x".repeat(MappedTestLogFile.CHUNK_SIZE + 1) + "\n";
+            testLogFile.write(encode(bigLine));
+            testLogFile.close();
+
+            Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "first line\n" + bigLine);
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testGzipFileAppendsNewMemberAfterReopen() throws IOException {
+        Path root = Files.createTempDirectory("gzip-log");
+        try {
+            TestLogFileRegistry registry = new TestLogFileRegistry();
+            registry.setMaxOpenFiles(1);
+            Path directory = Files.createDirectory(root.resolve("first"));
+            Path other = Files.createDirectory(root.resolve("second"));
+
+            registry.acquire(directory, TestLogFileType.GZIP, false).write(encode("first line\n"));
+            registry.acquire(other, TestLogFileType.GZIP, false);
+            Assert.assertEquals(registry.getEvictedFiles(), 1);
+            TestLogFile reopened = registry.acquire(directory, TestLogFileType.GZIP, false);
+            reopened.write(encode("second line\n"));
+            Assert.assertEquals(reopened.getWrittenBytes(), 23, "Size limit should count the evicted gzip member");
+
+            registry.close(directory);
+            Assert.assertEquals(registry.acquire(directory, TestLogFileType.GZIP, false).getWrittenBytes(), 0,
+                    "Size of the finished test should not be kept");
+            registry.closeAll();
+
+            try (InputStream stream = new GZIPInputStream(Files.newInputStream(directory.resolve("test.log.gz")))) {
+                Assert.assertEquals(new String(stream.readAllBytes(), StandardCharsets.UTF_8), "first line\nsecond line\n");
+            }
+        } finally {
+            FileUtils.deleteQuietly(root.toFile());
+        }
+    }
+
+    @Test
+    public void testRegistryReopensClosedFile() throws IOException {
+        Path directory = Files.createTempDirectory("stream-log");
+        try {
+            TestLogFileRegistry registry = new TestLogFileRegistry();
+            TestLogFile testLogFile = registry.acquire(directory, TestLogFileType.STREAM, false);
+            Assert.assertSame(registry.acquire(directory, TestLogFileType.STREAM, false), testLogFile);
+            testLogFile.write(encode("first line\n"));
+
+            registry.close(directory);
+            Assert.assertEquals(registry.size(), 0);
+            Assert.assertFalse(testLogFile.write(encode("ignored line\n")));
+
+            testLogFile = registry.acquire(directory, TestLogFileType.STREAM, false);
+            Assert.assertEquals(testLogFile.getWrittenBytes(), "first line\n".length());
+            testLogFile.write(encode("second line\n"));
+            registry.closeAll();
+
+            Assert.assertEquals(new String(Files.readAllBytes(directory.resolve("test.log")), StandardCharsets.UTF_8),
+                    "first line\nsecond line\n");
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testRegistryEvictsLeastRecentlyUsedFile() throws IOException {
+        Path root = Files.createTempDirectory("stream-log");
+        try {
+            TestLogFileRegistry registry = new TestLogFileRegistry();
+            registry.setMaxOpenFiles(2);
+            Path first = Files.createDirectory(root.resolve("first"));
+            Path second = Files.createDirectory(root.resolve("second"));
+            Path third = Files.createDirectory(root.resolve("third"));
+
+            TestLogFile firstFile = registry.acquire(first, TestLogFileType.STREAM, false);
+            registry.acquire(second, TestLogFileType.STREAM, false);
+            registry.acquire(first, TestLogFileType.STREAM, false);
+            TestLogFile secondFile = registry.acquire(second, TestLogFileType.STREAM, false);
+            registry.acquire(third, TestLogFileType.STREAM, false);
+
+            Assert.assertEquals(registry.size(), 2);
+            Assert.assertEquals(registry.getEvictedFiles(), 1);
+            Assert.assertTrue(firstFile.isClosed(), "Least recently used file should be evicted");
+            Assert.assertFalse(secondFile.isClosed());
+            registry.closeAll();
+            Assert.assertEquals(registry.size(), 0);
+        } finally {
+            FileUtils.deleteQuietly(root.toFile());
+        }
+    }
+
+    @Test
+    public void testGzipFileFlushIsReadableWithoutClose() throws IOException {
+        Path directory = Files.createTempDirectory("gzip-log");
+        try {
+            TestLogFileRegistry registry = new TestLogFileRegistry();
+            registry.acquire(directory, TestLogFileType.GZIP, false).write(encode("flushed line\n"));
+            registry.flush(directory);
+
+            // gzip trailer is not written yet, so the stream is read until the unexpected end
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (InputStream stream = new GZIPInputStream(Files.newInputStream(directory.resolve("test.log.gz")))) {
+                int b;
+                while ((b = stream.read()) >= 0) {
+                    content.write(b);
+                }
+            } catch (EOFException e) {
+                // expected for the unfinished gzip member
+            }
+            Assert.assertEquals(content.toString(StandardCharsets.UTF_8), "flushed line\n");
+            registry.closeAll();
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    private ByteBuffer encode(String line) {
+        return ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReportHistoryCleanerTest {
+
+    private Path reportDirectory;
+
+    @BeforeMethod
+    public void createReportDirectory() throws IOException {
+        reportDirectory = Files.createTempDirectory("carina-report-history");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void removeReportDirectory() throws IOException {
+        FileUtils.deleteDirectory(reportDirectory.toFile());
+    }
+
+    @Test
+    public void testRetentionByNumber() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            createRun("100" + i, 10);
+        }
+        Files.createDirectories(reportDirectory.resolve("gallery-lib"));
+
+        Path trash = reportDirectory.resolve(ReportHistoryCleaner.TRASH_DIRECTORY_NAME);
+        // leftover of the interrupted cleanup
+        createRun(ReportHistoryCleaner.TRASH_DIRECTORY_NAME + "/999", 10);
+
+        CompletableFuture<Void> future = new ReportHistoryCleaner(reportDirectory, 3, 0, Duration.ZERO).clean();
+        // expired runs are renamed before clean returns
+        Assert.assertTrue(Files.exists(reportDirectory.resolve("1005")));
+        Assert.assertTrue(Files.exists(reportDirectory.resolve("1004")));
+        Assert.assertFalse(Files.exists(reportDirectory.resolve("1003")));
+        Assert.assertFalse(Files.exists(reportDirectory.resolve("1001")));
+        Assert.assertTrue(Files.exists(reportDirectory.resolve("gallery-lib")));
+
+        await(future);
+        Assert.assertEquals(count(trash), 0, "Trash should be emptied");
+    }
+
+    @Test
+    public void testRetentionByAge() throws Exception {
+        Path oldRun = createRun("1001", 10);
+        Path newRun = createRun("1002", 10);
+        Files.setLastModifiedTime(oldRun, FileTime.from(Instant.now().minus(Duration.ofDays(3))));
+
+        await(new ReportHistoryCleaner(reportDirectory, 0, 0, Duration.ofDays(2)).clean());
+        Assert.assertFalse(Files.exists(oldRun));
+        Assert.assertTrue(Files.exists(newRun));
+    }
+
+    @Test
+    public void testRetentionBySize() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            createRun("100" + i, 1000);
+        }
+
+        await(new ReportHistoryCleaner(reportDirectory, 0, 2500, Duration.ZERO).clean());
+        Assert.assertTrue(Files.exists(reportDirectory.resolve("1004")));
+        Assert.assertTrue(Files.exists(reportDirectory.resolve("1003")));
+        Assert.assertFalse(Files.exists(reportDirectory.resolve("1002")));
+        Assert.assertFalse(Files.exists(reportDirectory.resolve("1001")));
+    }
+
+    private Path createRun(String name, int size) throws IOException {
+        Path directory = Files.createDirectories(reportDirectory.resolve(name));
+        Files.write(Files.createDirectories(directory.resolve("test")).resolve("test.log"), new byte[size]);
+        return directory;
+    }
+
+    private static long count(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) throws InterruptedException, ExecutionException, TimeoutException {
+        future.get(30, TimeUnit.SECONDS);
+    }
+}
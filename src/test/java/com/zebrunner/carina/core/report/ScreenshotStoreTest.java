@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ScreenshotStoreTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("carina-screenshot-store");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void removeDirectory() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void testIdenticalImagesAreStoredOnce() throws IOException {
+        ScreenshotStore store = new ScreenshotStore(directory.resolve(ScreenshotStore.STORE_DIRECTORY_NAME));
+        Path testDirectory = Files.createDirectories(directory.resolve("test"));
+        Path first = Files.write(testDirectory.resolve("1.png"), new byte[] { 1, 2, 3 });
+        Path second = Files.write(testDirectory.resolve("2.png"), new byte[] { 1, 2, 3 });
+
+        Path stored = store.move(first);
+        Assert.assertEquals(store.move(second), stored);
+        Assert.assertEquals(store.put(new byte[] { 1, 2, 3 }), stored);
+        Assert.assertNotEquals(store.put(new byte[] { 3, 2, 1 }), stored);
+
+        Assert.assertFalse(Files.exists(first));
+        Assert.assertFalse(Files.exists(second));
+        Assert.assertEquals(Files.readAllBytes(stored), new byte[] { 1, 2, 3 });
+        Assert.assertEquals(stored.getFileName().toString(), "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81.png");
+        Assert.assertEquals(FileUtils.listFiles(directory.toFile(), null, true).size(), 2);
+    }
+}
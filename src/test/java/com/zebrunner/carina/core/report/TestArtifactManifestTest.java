@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.zebrunner.carina.core.config.ReportConfiguration;
+import com.zebrunner.carina.utils.report.ReportContext;
+
+public class TestArtifactManifestTest {
+
+    private Path testDirectory;
+
+    @BeforeMethod
+    public void createTestDirectory() throws IOException {
+        testDirectory = Files.createTempDirectory("carina-test-artifacts");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void removeTestDirectory() throws IOException {
+        TestArtifactManifest.remove(testDirectory);
+        FileUtils.deleteDirectory(testDirectory.toFile());
+    }
+
+    @Test
+    public void testAddedAndWrittenImages() throws IOException {
+        Files.writeString(testDirectory.resolve("test.log"), "log");
+        Files.write(testDirectory.resolve("2.png"), new byte[1]);
+
+        TestArtifactManifest manifest = TestArtifactManifest.get(testDirectory);
+        // screenshot registered before it is written by the background writer
+        manifest.add(testDirectory.resolve("1.png"));
+        Assert.assertEquals(manifest.getImages(), List.of("1.png", "2.png"));
+        Assert.assertTrue(manifest.hasScreenshots());
+
+        // file written by the code that does not know about the manifest is found by the next listing
+        Files.write(testDirectory.resolve("3.png"), new byte[1]);
+        Files.setLastModifiedTime(testDirectory, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        Assert.assertEquals(manifest.getImages(), List.of("1.png", "2.png", "3.png"));
+    }
+
+    @Test
+    public void testRecentModifiedTimeIsNotTrusted() throws IOException {
+        FileTime modifiedTime = FileTime.fromMillis(System.currentTimeMillis());
+        Files.setLastModifiedTime(testDirectory, modifiedTime);
+        TestArtifactManifest manifest = TestArtifactManifest.get(testDirectory);
+        Assert.assertTrue(manifest.getImages().isEmpty());
+
+        // coarse timestamp: file written in the same tick does not change the modification time of the directory
+        Files.write(testDirectory.resolve("1.png"), new byte[1]);
+        Files.setLastModifiedTime(testDirectory, modifiedTime);
+        Assert.assertEquals(manifest.getImages(), List.of("1.png"));
+    }
+
+    @Test
+    public void testOldModifiedTimeIsTrusted() throws IOException {
+        FileTime modifiedTime = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+        Files.setLastModifiedTime(testDirectory, modifiedTime);
+        TestArtifactManifest manifest = TestArtifactManifest.get(testDirectory);
+        Assert.assertTrue(manifest.getImages().isEmpty());
+
+        Files.write(testDirectory.resolve("1.png"), new byte[1]);
+        Files.setLastModifiedTime(testDirectory, modifiedTime);
+        Assert.assertTrue(manifest.getImages().isEmpty(), "Directory should not be listed again for the same modification time");
+    }
+
+    @Test
+    public void testCurrentDoesNotRegisterManifest() {
+        Path currentTestDirectory = ReportContext.getTestDirectory();
+        Assert.assertNotSame(TestArtifactManifest.current(), TestArtifactManifest.current());
+
+        TestArtifactManifest manifest = TestArtifactManifest.get(currentTestDirectory);
+        Assert.assertSame(TestArtifactManifest.current(), manifest);
+        TestArtifactManifest.remove(currentTestDirectory);
+    }
+
+    @Test
+    public void testNoScreenshots() throws IOException {
+        Files.writeString(testDirectory.resolve("test.log"), "log");
+        Files.writeString(testDirectory.resolve("sql.log"), "log");
+
+        TestArtifactManifest manifest = TestArtifactManifest.get(testDirectory);
+        Assert.assertTrue(manifest.getImages().isEmpty());
+        Assert.assertFalse(manifest.hasScreenshots());
+    }
+
+    @Test
+    public void testGenerateTestReport() throws IOException {
+        Path currentTestDirectory = ReportContext.getTestDirectory();
+        TestArtifactManifest.get(currentTestDirectory).add(currentTestDirectory.resolve("b.png"));
+        TestArtifactManifest.get(currentTestDirectory).add(currentTestDirectory.resolve("a.png"));
+
+        ReportConfiguration.generateTestReport();
+        Path reportFile = currentTestDirectory.resolve(TestArtifactManifest.TEST_REPORT_FILE_NAME);
+        String report = Files.readString(reportFile, StandardCharsets.UTF_8);
+        Files.delete(reportFile);
+        Assert.assertTrue(report.contains("<a href=\"a.png\"><img src=\"a.png\" title=\"\""), "Image is not rendered: " + report);
+        Assert.assertTrue(report.indexOf("a.png") < report.indexOf("b.png"), "Images should be sorted");
+        Assert.assertFalse(report.contains("${"), "All placeholders should be replaced");
+    }
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.zebrunner.carina.utils.report.TestResultItem;
+import com.zebrunner.carina.utils.report.TestResultType;
+
+/**
+ * Tests for {@link EmailReportItemCollector}
+ */
+public class EmailReportItemCollectorTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // collector is shared by the whole run, so pushed results must not clash with the results of other tests
+    private static final String PACK_PREFIX = "collector-" + UUID.randomUUID() + "-";
+    private static final int THREADS = 8;
+    private static final int ITEMS_PER_THREAD = 50;
+    private static final int BENCHMARK_THREADS = 64;
+    private static final int BENCHMARK_ITEMS_PER_THREAD = 10_000;
+
+    @Test
+    public void testRetriedResultKeepsFirstPosition() {
+        String pack = PACK_PREFIX + "order";
+        TestResultItem first = new TestResultItem(pack, "first", "", TestResultType.FAIL, "", "", "");
+        TestResultItem second = new TestResultItem(pack, "second", "", TestResultType.PASS, "", "", "");
+        TestResultItem retried = new TestResultItem(pack, "first", "", TestResultType.PASS, "", "", "");
+        EmailReportItemCollector.push(first);
+        EmailReportItemCollector.push(second);
+        EmailReportItemCollector.push(retried);
+
+        List<TestResultItem> results = EmailReportItemCollector.getTestResults()
+                .stream()
+                .filter(item -> pack.equals(item.getPack()))
+                .collect(Collectors.toList());
+        Assert.assertEquals(results.size(), 2);
+        Assert.assertSame(results.get(0), retried, "Retried result should replace the first one at its position");
+        Assert.assertSame(results.get(1), second);
+    }
+
+    @Test
+    public void testConcurrentPush() throws Exception {
+        String packPrefix = PACK_PREFIX + "thread-";
+        pushConcurrently(packPrefix, THREADS, ITEMS_PER_THREAD);
+
+        List<TestResultItem> results = EmailReportItemCollector.getTestResults();
+        for (int thread = 0; thread < THREADS; thread++) {
+            String pack = packPrefix + thread;
+            List<String> tests = results.stream()
+                    .filter(item -> pack.equals(item.getPack()))
+                    .map(TestResultItem::getTest)
+                    .collect(Collectors.toList());
+            Assert.assertEquals(tests.size(), ITEMS_PER_THREAD, "Results of " + pack + " are lost");
+            for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+                Assert.assertEquals(tests.get(i), pack + "-test-" + i, "Results of " + pack + " are out of the push order");
+            }
+        }
+    }
+
+    /**
+     * Contention benchmark, disabled by default: the throughput depends on the machine and results stay in the shared
+     * collector. Enable it locally to compare the collector implementations.
+     */
+    @Test(enabled = false)
+    public void testConcurrentPushThroughput() throws Exception {
+        String packPrefix = PACK_PREFIX + "benchmark-";
+        long nanos = pushConcurrently(packPrefix, BENCHMARK_THREADS, BENCHMARK_ITEMS_PER_THREAD);
+        long items = (long) BENCHMARK_THREADS * BENCHMARK_ITEMS_PER_THREAD;
+        LOGGER.info("{} results pushed by {} threads in {} ms, {} results/sec", items, BENCHMARK_THREADS,
+                TimeUnit.NANOSECONDS.toMillis(nanos), items * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos));
+    }
+
+    /**
+     * Push results from the specified number of threads started at the same time.
+     *
+     * @return time of the push in nanoseconds
+     */
+    private static long pushConcurrently(String packPrefix, int threads, int itemsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                String pack = packPrefix + thread;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < itemsPerThread; i++) {
+                        EmailReportItemCollector.push(new TestResultItem(pack, pack + "-test-" + i, "", TestResultType.PASS, "", "", ""));
+                    }
+                    return null;
+                }));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(1, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - startTime;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testJournalStartedForNextSuiteKeepsPreviousResults() throws IOException {
+        String pack = PACK_PREFIX + "journal";
+        Path directory = Files.createTempDirectory("email-report-journal");
+        try {
+            EmailReportItemCollector.push(new TestResultItem(pack, "previous suite", "", TestResultType.PASS, "", "", ""));
+            EmailReportItemCollector.startJournal(new EmailReportJournal(directory, "Title", "env", "1.0", "chrome"));
+            EmailReportItemCollector.push(new TestResultItem(pack, "next suite", "", TestResultType.PASS, "", "", ""));
+
+            StringWriter writer = new StringWriter();
+            EmailReportItemCollector.getJournal()
+                    .orElseThrow()
+                    .toReport("Title", "env", "1.0", "chrome", "now", List.of())
+                    .write(writer);
+            Assert.assertTrue(writer.toString().contains("previous suite"), "Results of the previous suite are lost");
+            Assert.assertTrue(writer.toString().contains("next suite"));
+
+            EmailReportItemCollector.closeJournal();
+            Assert.assertTrue(EmailReportItemCollector.getJournal().isEmpty());
+            Assert.assertFalse(Files.exists(directory.resolve(EmailReportJournal.JOURNAL_FILE_NAME)), "Journal should be deleted");
+        } finally {
+            EmailReportItemCollector.closeJournal();
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.zebrunner.carina.utils.report.TestResultItem;
+import com.zebrunner.carina.utils.report.TestResultType;
+
+/**
+ * Tests for {@link EmailReportJournal}
+ */
+public class EmailReportJournalTest {
+
+    private static final String FINISH_DATE = "12:00:00 2023-01-01";
+    private static final List<String> CREATED_ITEMS = List.of("item 1");
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("email-report-journal");
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @DataProvider(name = "maxInMemoryRecords")
+    public Object[][] maxInMemoryRecords() {
+        // the small limit forces the external merge of the sorted runs
+        return new Object[][] { { EmailReportJournal.DEFAULT_MAX_IN_MEMORY_RECORDS }, { 2 } };
+    }
+
+    @Test(dataProvider = "maxInMemoryRecords")
+    public void testReportIsTheSameAsGenerated(int maxInMemoryRecords) throws IOException {
+        TestResultItem retried = new TestResultItem("carina-api", "Test api 3", "", TestResultType.FAIL, "", "log-3", "timeout");
+        List<TestResultItem> finalResults = List.of(
+                new TestResultItem("carina-reporting", "Test api 2", "", TestResultType.FAIL, "", "log-2", "expected <1>\tbut was <2>"),
+                new TestResultItem("carina-reporting", "Test api 1", "", TestResultType.PASS, "slides-1", "log-1", ""),
+                new TestResultItem("carina-api", "Test api 3", "", TestResultType.PASS, "", "log-3-retry", ""),
+                new TestResultItem("carina-api", "Test api 4", "", TestResultType.SKIP, "", "log-4", "skipped\nby dependency"),
+                new TestResultItem("carina-web", "Test web 1", "", TestResultType.PASS_WITH_KNOWN_ISSUES, "", "log-5", "known issue"));
+
+        try (EmailReportJournal journal = new EmailReportJournal(directory, "Title", "env", "1.0", "chrome", maxInMemoryRecords)) {
+            journal.append(retried);
+            finalResults.forEach(journal::append);
+
+            EmailReportGenerator expected = new EmailReportGenerator("Title", "env", "1.0", "chrome", FINISH_DATE, new ArrayList<>(finalResults),
+                    CREATED_ITEMS);
+            StringWriter writer = new StringWriter();
+            journal.toReport("Title", "env", "1.0", "chrome", FINISH_DATE, CREATED_ITEMS).write(writer);
+            Assert.assertEquals(writer.toString(), expected.getEmailBody());
+            try (Stream<Path> files = Files.list(directory)) {
+                Assert.assertEquals(files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList()),
+                        List.of(EmailReportJournal.JOURNAL_FILE_NAME, EmailReportJournal.LIVE_REPORT_FILE_NAME),
+                        "Sorted runs should be deleted");
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Assert.assertEquals(files.map(file -> file.getFileName().toString()).collect(Collectors.toList()),
+                    List.of(EmailReportJournal.LIVE_REPORT_FILE_NAME), "Journal should be deleted on close");
+        }
+    }
+
+    @Test
+    public void testLiveReportIsUpdatedOnEveryResult() throws IOException {
+        Path liveReport = directory.resolve(EmailReportJournal.LIVE_REPORT_FILE_NAME);
+        try (EmailReportJournal journal = new EmailReportJournal(directory, "Title", "env", "1.0", "chrome")) {
+            String emptyReport = Files.readString(liveReport, StandardCharsets.UTF_8);
+            Assert.assertTrue(emptyReport.contains("<td>Passed: </td><td>0</td>"), "Passed count is not valid");
+            Assert.assertTrue(emptyReport.trim().endsWith("</div>"), "Live report should be closed");
+
+            journal.append(new TestResultItem("carina-reporting", "Test api 1", "", TestResultType.PASS, "", "log-1", ""));
+            journal.append(new TestResultItem("carina-reporting", "Test api 2", "", TestResultType.FAIL, "", "log-2", "failure"));
+
+            String report = Files.readString(liveReport, StandardCharsets.UTF_8);
+            Assert.assertTrue(report.contains("<td>Passed: </td><td>1</td>"), "Passed count is not updated");
+            Assert.assertTrue(report.contains("<td>Failed:</td><td>1</td>"), "Failed count is not updated");
+            Assert.assertTrue(report.indexOf("log-1") < report.indexOf("log-2"), "Rows should be appended in the order of results");
+            Assert.assertTrue(report.trim().endsWith("</div>"), "Live report should be closed after every row");
+            Assert.assertEquals(report.split("carina-reporting", -1).length - 1, 1, "Package row should not be repeated");
+        }
+    }
+}
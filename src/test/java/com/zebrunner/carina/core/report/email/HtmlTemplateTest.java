@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link HtmlTemplate}
+ */
+public class HtmlTemplateTest {
+
+    private static final List<String> SLOT_NAMES = List.of("name", "url", "rows");
+
+    @Test
+    public void testRender() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("<a href='${url}'>${name}</a>${unknown}${name", SLOT_NAMES);
+        Assert.assertEquals(render(template, "Logs", "log-url", null), "<a href='log-url'>Logs</a>${unknown}${name");
+        Assert.assertEquals(render(template, "Logs", null, null), "<a href='${url}'>Logs</a>${unknown}${name",
+                "Placeholder of the not set value should be kept");
+    }
+
+    @Test
+    public void testSplitAroundSlot() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("<h2>${name}</h2><table>${rows}</table>${url}", SLOT_NAMES);
+        Assert.assertEquals(render(template.before(2), "Title", "link", "ignored"), "<h2>Title</h2><table>");
+        Assert.assertEquals(render(template.after(2), "Title", "link", "ignored"), "</table>link");
+    }
+
+    @Test
+    public void testEmailReportTemplatesAreLoaded() {
+        Map<String, String> templates = HtmlTemplate.load("email-report.html");
+        Assert.assertTrue(templates.get("container").startsWith("<div id='container'"));
+        Assert.assertTrue(templates.get("container").endsWith("</div>"), "Trailing line break should not be included");
+        Assert.assertEquals(templates.get("created_item"), "<li>${created_item}</li>");
+    }
+
+    private String render(HtmlTemplate template, String... values) throws IOException {
+        StringWriter writer = new StringWriter();
+        template.render(writer, values);
+        return writer.toString();
+    }
+}
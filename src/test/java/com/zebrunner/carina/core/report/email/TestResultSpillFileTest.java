@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.report.email;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.zebrunner.carina.utils.report.TestResultItem;
+import com.zebrunner.carina.utils.report.TestResultType;
+
+/**
+ * Tests for {@link TestResultSpillFile} and {@link SpilledTestResultItem}
+ */
+public class TestResultSpillFileTest {
+
+    private Path file;
+    private TestResultSpillFile spillFile;
+
+    @BeforeMethod
+    public void createSpillFile() throws IOException {
+        file = Files.createTempFile("spill-file", ".bin");
+        spillFile = new TestResultSpillFile(file);
+    }
+
+    @AfterMethod
+    public void deleteSpillFile() throws IOException {
+        spillFile = null;
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testRecordsAcrossChunks() throws IOException {
+        String largeField = "x".repeat(TestResultSpillFile.CHUNK_SIZE + 10);
+        List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            offsets.add(spillFile.append("description " + i, null, "", "non-ascii: éè 中文 " + i));
+        }
+        long largeRecord = spillFile.append(largeField);
+        offsets.add(spillFile.append("after large record", null, null, null));
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(spillFile.read(offsets.get(i), 4),
+                    new String[] { "description " + i, null, "", "non-ascii: éè 中文 " + i });
+        }
+        Assert.assertEquals(spillFile.read(largeRecord, 1)[0], largeField);
+        Assert.assertEquals(spillFile.read(offsets.get(1000), 4), new String[] { "after large record", null, null, null });
+        Assert.assertTrue(spillFile.size() > TestResultSpillFile.CHUNK_SIZE);
+    }
+
+    @Test
+    public void testSpilledItemRendersTheSameReport() throws IOException {
+        List<TestResultItem> items = List.of(
+                new TestResultItem("carina-reporting", "Test api 2", "desc", TestResultType.FAIL, "", "log-2", "expected <1> but was <2>"),
+                new TestResultItem("carina-reporting", "Test api 1", null, TestResultType.PASS, "slides-1", "log-1", null),
+                new TestResultItem("carina-api", "Test api 3", "", TestResultType.SKIP, "", "log-3", "skipped"));
+        List<TestResultItem> spilledItems = new ArrayList<>();
+        for (TestResultItem item : items) {
+            SpilledTestResultItem spilled = SpilledTestResultItem.spill(item, item.getPack(), spillFile);
+            Assert.assertEquals(spilled.hash(), item.hash());
+            Assert.assertEquals(spilled.getDescription(), item.getDescription());
+            Assert.assertEquals(spilled.getFailReason(), item.getFailReason());
+            spilledItems.add(spilled);
+        }
+
+        String expected = new EmailReportGenerator("Title", "env", "1.0", "chrome", "12:00:00 2023-01-01", new ArrayList<>(items),
+                List.of()).getEmailBody();
+        String actual = new EmailReportGenerator("Title", "env", "1.0", "chrome", "12:00:00 2023-01-01", spilledItems, List.of())
+                .getEmailBody();
+        Assert.assertEquals(actual, expected);
+    }
+}
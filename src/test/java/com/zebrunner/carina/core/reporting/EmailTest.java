@@ -15,10 +15,16 @@
  *******************************************************************************/
 package com.zebrunner.carina.core.reporting;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import com.zebrunner.carina.core.report.email.EmailReportGenerator;
 import com.zebrunner.carina.core.report.email.EmailReportItemCollector;
 import com.zebrunner.carina.core.report.email.EmailReportItemComparator;
 import com.zebrunner.carina.core.report.email.EmailValidator;
@@ -91,6 +97,35 @@ public class EmailTest {
                 TEST_RESULT_ITEM1.getTest() + " is different than " + TEST_RESULT_ITEM1_1.getTest());
     }
 
+    @Test
+    public void testStreamedEmailReport() throws IOException {
+        List<TestResultItem> items = new ArrayList<>(List.of(
+                new TestResultItem("carina-reporting", "Test api 2", "", TestResultType.FAIL, "", "log-2", "expected <1> but was <2>"),
+                new TestResultItem("carina-reporting", "Test api 1", "", TestResultType.PASS, "slides-1", "log-1", ""),
+                new TestResultItem("carina-api", "Test api 3", "", TestResultType.SKIP, "", "log-3", "")));
+        EmailReportGenerator report = new EmailReportGenerator("Suite title", "env", "1.0", "chrome", "12:00:00 2023-01-01",
+                items, List.of(CREATED_ITEM1));
+
+        StringWriter writer = new StringWriter();
+        report.write(writer);
+        String emailBody = writer.toString();
+        Assert.assertEquals(emailBody, report.getEmailBody());
+
+        Assert.assertTrue(emailBody.contains("<td>Passed: </td><td>1</td>"), "Passed count is not valid");
+        Assert.assertTrue(emailBody.contains("<td>Failed:</td><td>1</td>"), "Failed count is not valid");
+        Assert.assertTrue(emailBody.contains("<td>Skipped:</td><td>1</td>"), "Skipped count is not valid");
+        Assert.assertTrue(emailBody.contains("<td>Success rate:</td><td>33%</td>"), "Success rate is not valid");
+        Assert.assertTrue(emailBody.contains("expected &lt;1&gt; but was &lt;2&gt;"), "Fail reason should be escaped");
+        Assert.assertTrue(emailBody.contains("href='slides-1'"), "Slides link is missing");
+        Assert.assertTrue(emailBody.contains("<li>" + CREATED_ITEM1 + "</li>"), "Created item is missing");
+        Assert.assertFalse(emailBody.contains("${"), "All placeholders should be replaced");
+
+        // rows are grouped by package in the comparator order
+        Assert.assertTrue(emailBody.indexOf("carina-api") < emailBody.indexOf("Test api 3"));
+        Assert.assertTrue(emailBody.indexOf("Test api 3") < emailBody.indexOf("carina-reporting"));
+        Assert.assertTrue(emailBody.indexOf("Test api 1") < emailBody.indexOf("Test api 2"));
+    }
+
     private boolean isEqual(TestResultItem testResultItem1, TestResultItem testResultItem2) {
         EmailReportItemComparator comparator = new EmailReportItemComparator();
 
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.core.testng;
+
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link SuiteDependencyIndex}
+ */
+public class SuiteDependencyIndexTest {
+
+    @Test
+    public void dependedUponMethod() {
+        // dependency for the next test
+    }
+
+    @Test(dependsOnMethods = "dependedUponMethod")
+    public void testDependencyIndex() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        SuiteDependencyIndex index = SuiteDependencyIndex.get(result.getTestContext().getSuite());
+        ITestNGMethod dependedUponMethod = Arrays.stream(result.getTestContext().getAllTestMethods())
+                .filter(method -> "dependedUponMethod".equals(method.getMethodName()))
+                .findFirst()
+                .orElseThrow();
+
+        Assert.assertTrue(index.isDependedUpon(dependedUponMethod), "Dependency is not detected");
+        Assert.assertFalse(index.isDependedUpon(result.getMethod()), "Test method has no dependent methods");
+        Assert.assertEquals(index.getMethodsDependedUpon("TESTDEPENDENCYINDEX"),
+                Arrays.asList(getClass().getName() + ".dependedUponMethod"));
+        Assert.assertTrue(index.getMethodsDependedUpon("dependedUponMethod").isEmpty());
+        Assert.assertSame(SuiteDependencyIndex.get(result.getTestContext().getSuite()), index, "Index should be built once per suite");
+    }
+
+    @Test(dependsOnMethods = "dependedUponMethod")
+    public void testTestContextDependencyIndex() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        SuiteDependencyIndex index = SuiteDependencyIndex.get(result.getTestContext());
+
+        Assert.assertEquals(index.getMethodsDependedUpon("testTestContextDependencyIndex"),
+                Arrays.asList(getClass().getName() + ".dependedUponMethod"));
+        Assert.assertSame(SuiteDependencyIndex.get(result.getTestContext()), index, "Index should be built once per test context");
+        Assert.assertNotSame(SuiteDependencyIndex.get(result.getTestContext().getSuite()), index);
+    }
+}
@@ -63,6 +63,30 @@ public class TestNamingServiceTest {
                 testName + " wasn't generated by pattern: " + TEST_NAMING_PATTERN);
     }
 
+    @Test
+    public void testNameByCompiledPattern() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        try {
+            R.CONFIG.put("test_naming_pattern", " {method_name} {unknown} {group_names}{method_name ", true);
+            Assert.assertEquals(TestNamingService.getTestName(result),
+                    result.getMethod().getMethodName() + " {unknown} " + String.join(", ", result.getMethod().getGroups()) + "{method_name");
+
+            R.CONFIG.put("test_naming_pattern", "{test_class}", true);
+            Assert.assertEquals(TestNamingService.getTestName(result), getClass().getSimpleName(),
+                    "Pattern should be recompiled when it is changed");
+        } finally {
+            R.CONFIG.getTestProperties().remove("test_naming_pattern");
+        }
+    }
+
+    @Test(invocationCount = 2)
+    public void testNameWithInvocationCount() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        // the second invocation uses the invocation count cached by the first one
+        String testName = TestNamingService.getTestName(result);
+        Assert.assertTrue(testName.matches(".* \\[InvCount=0[12]\\]"), "Invocation count wasn't appended: " + testName);
+    }
+
     @Test
     public void testGetPackageName() {
         ITestResult result = Reporter.getCurrentTestResult();
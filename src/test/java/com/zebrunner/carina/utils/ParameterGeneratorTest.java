@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright 2020-2023 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.zebrunner.carina.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.zebrunner.carina.utils.commons.SpecialKeywords;
+import com.zebrunner.carina.utils.config.Configuration;
+import com.zebrunner.carina.utils.config.StandardConfigurationOption;
+import com.zebrunner.carina.utils.resources.L10N;
+
+public class ParameterGeneratorTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    @AfterMethod(alwaysRun = true)
+    public void clearTestData() {
+        R.TESTDATA.clearTestProperties();
+        ParameterGenerator.clearCache();
+    }
+
+    @Test
+    public void testNilAndPlainParameters() {
+        Assert.assertNull(ParameterGenerator.process(null));
+        Assert.assertNull(ParameterGenerator.process("NIL"));
+        String plain = "plain parameter";
+        Assert.assertSame(ParameterGenerator.process(plain), plain, "Parameter without placeholders should be returned as is");
+        String json = "{\"name\": \"value\"}";
+        Assert.assertSame(ParameterGenerator.process(json), json);
+    }
+
+    @Test
+    public void testMultiplePlaceholders() {
+        R.TESTDATA.put("user", "alice", true);
+        R.TESTDATA.put("password", "secret", true);
+        ParameterGenerator.setUUID("uuid-1");
+
+        Assert.assertEquals(ParameterGenerator.process("{testdata:user}:{testdata:password}"), "alice:secret");
+        Assert.assertEquals(ParameterGenerator.process("id={generate_uuid}, user={testdata:user}"), "id=uuid-1, user=alice");
+        Assert.assertEquals(ParameterGenerator.process("{ {testdata:user} }"), "{ alice }");
+
+        String generated = ParameterGenerator.process("{generate:5}-{generaten:3}-{generatean:4}").toString();
+        Assert.assertTrue(generated.matches("[a-zA-Z]{5}-\\d{3}-[a-zA-Z0-9]{4}"), generated);
+    }
+
+    @Test
+    public void testUnknownAndInvalidPlaceholders() {
+        Assert.assertEquals(ParameterGenerator.process("{unknown:1} {generate:} {generate:abc} {generate"),
+                "{unknown:1} {generate:} {generate:abc} {generate");
+        Assert.assertEquals(ParameterGenerator.process("{env:not_existing_key}"), "");
+    }
+
+    @Test
+    public void testCachedPlaceholders() {
+        R.TESTDATA.put("cached_user", "global");
+        Assert.assertEquals(ParameterGenerator.process("{testdata:cached_user}"), "global");
+
+        R.TESTDATA.put("cached_user", "override", true);
+        Assert.assertEquals(ParameterGenerator.process("{testdata:cached_user}"), "override",
+                "Test property override should bypass the cache");
+        R.TESTDATA.clearTestProperties();
+        Assert.assertEquals(ParameterGenerator.process("{testdata:cached_user}"), "global");
+
+        R.TESTDATA.put("cached_user", "changed");
+        Assert.assertEquals(ParameterGenerator.process("{testdata:cached_user}"), "global", "Value should be cached");
+        ParameterGenerator.clearCache();
+        Assert.assertEquals(ParameterGenerator.process("{testdata:cached_user}"), "changed");
+    }
+
+    @Test
+    public void testCachedEnvPlaceholderFollowsEnvironment() {
+        String env = R.CONFIG.get(Configuration.Parameter.ENV.getKey());
+        try {
+            R.CONFIG.put("qa.cached_url", "https://qa.example.com");
+            R.CONFIG.put("prod.cached_url", "https://prod.example.com");
+            R.CONFIG.put(Configuration.Parameter.ENV.getKey(), "qa");
+            Assert.assertEquals(ParameterGenerator.process("{env:cached_url}"), "https://qa.example.com");
+            R.CONFIG.put(Configuration.Parameter.ENV.getKey(), "prod");
+            Assert.assertEquals(ParameterGenerator.process("{env:cached_url}"), "https://prod.example.com",
+                    "Environment switch should not return the cached value of the previous environment");
+        } finally {
+            R.CONFIG.put(Configuration.Parameter.ENV.getKey(), env);
+        }
+    }
+
+    @Test
+    public void testGeneratedPlaceholdersAreNotCached() {
+        Set<Object> generated = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            generated.add(ParameterGenerator.process("{generatean:32}"));
+        }
+        Assert.assertEquals(generated.size(), 10, "Generated values should be unique");
+    }
+
+    @Test
+    public void testInvocationHashIsContentBased() {
+        ITestNGMethod method = testMethod(ParameterGeneratorTest.class, "dataProviderTest");
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("user", "alice");
+        row.put("TUID", "tuid-1");
+        Map<String, String> reorderedRow = new LinkedHashMap<>();
+        reorderedRow.put("TUID", "tuid-1");
+        reorderedRow.put("user", new String("alice"));
+
+        String hash = ParameterGenerator.hash(new Object[] { "value", 1, row }, method);
+        Assert.assertTrue(hash.matches("[0-9a-f]{32}"), hash);
+        Assert.assertEquals(ParameterGenerator.hash(new Object[] { "value", 1, reorderedRow }, method), hash);
+
+        Assert.assertNotEquals(ParameterGenerator.hash(new Object[] { "value", 1L, row }, method), hash);
+        Assert.assertNotEquals(ParameterGenerator.hash(new Object[] { "value", 1, Map.of("user", "bob") }, method), hash);
+        Assert.assertNotEquals(ParameterGenerator.hash(new Object[] { "value", 1, row },
+                testMethod(ParameterGeneratorTest.class, "anotherTest")), hash);
+        Assert.assertNotEquals(ParameterGenerator.hash(new Object[] { "value", 1, row },
+                testMethod(ParameterGenerator.class, "dataProviderTest")), hash);
+        Assert.assertNotEquals(ParameterGenerator.hash(new Object[] { null }, method),
+                ParameterGenerator.hash(new Object[] { "null" }, method));
+        Assert.assertNotEquals(ParameterGenerator.hash(null, method), ParameterGenerator.hash(new Object[0], method));
+    }
+
+    @Test
+    public void testInvocationHashResolvesLegacyCollision() {
+        ITestNGMethod method = testMethod(ParameterGeneratorTest.class, "dataProviderTest");
+        Object[] first = { "Aa" };
+        Object[] second = { "BB" };
+        Assert.assertEquals(Arrays.hashCode(first), Arrays.hashCode(second), "Arguments should collide in the legacy hash");
+
+        Assert.assertNotEquals(ParameterGenerator.hash(first, method), ParameterGenerator.hash(second, method));
+    }
+
+    @Test
+    public void testSinglePlaceholderMatchesLegacyImplementation() {
+        R.TESTDATA.put("user", "alice", true);
+        List<String> params = List.of("plain value without placeholders", "https://example.com/path?query=value",
+                "{testdata:user}", "prefix {testdata:user} suffix", "{\"json\": true}");
+        for (String param : params) {
+            Assert.assertEquals(ParameterGenerator.process(param), LegacyParameterGenerator.process(param));
+        }
+    }
+
+    private static ITestNGMethod testMethod(Class<?> realClass, String methodName) {
+        return (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(), new Class<?>[] { ITestNGMethod.class },
+                (proxy, invokedMethod, args) -> {
+                    switch (invokedMethod.getName()) {
+                    case "getRealClass":
+                        return realClass;
+                    case "getMethodName":
+                        return methodName;
+                    default:
+                        throw new UnsupportedOperationException(invokedMethod.getName());
+                    }
+                });
+    }
+
+    /**
+     * Previous implementation: sequence of the regex matchers, only the first placeholder of the string is replaced.
+     */
+    private static final class LegacyParameterGenerator {
+        private static final Pattern GENERATE_UUID_PATTERN = Pattern.compile(SpecialKeywords.GENERATE_UUID);
+        private static final Pattern GENERATE_PATTERN = Pattern.compile(SpecialKeywords.GENERATE);
+        private static final Pattern GENERATEAN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEAN);
+        private static final Pattern GENERATEN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEN);
+        private static final Pattern TESTDATA_PATTERN = Pattern.compile(SpecialKeywords.TESTDATA);
+        private static final Pattern ENV_PATTERN = Pattern.compile(SpecialKeywords.ENV);
+        private static final Pattern L10N_PATTERN = Pattern.compile(SpecialKeywords.L10N_PATTERN);
+        private static String uuid;
+
+        private static Object process(String param) {
+            try {
+                if (param == null || param.equalsIgnoreCase("nil")) {
+                    return null;
+                }
+
+                Matcher matcher = GENERATE_UUID_PATTERN.matcher(param);
+                if (matcher.find()) {
+                    return StringUtils.replace(param, matcher.group(), uuid);
+                }
+                matcher = GENERATE_PATTERN.matcher(param);
+                if (matcher.find()) {
+                    int start = param.indexOf(':') + 1;
+                    int end = param.indexOf('}');
+                    int size = Integer.parseInt(param.substring(start, end));
+                    return StringUtils.replace(param, matcher.group(), StringGenerator.generateWord(size));
+                }
+
+                matcher = GENERATEAN_PATTERN.matcher(param);
+                if (matcher.find()) {
+                    int start = param.indexOf(':') + 1;
+                    int end = param.indexOf('}');
+                    int size = Integer.parseInt(param.substring(start, end));
+                    return StringUtils.replace(param, matcher.group(), StringGenerator.generateWordAN(size));
+                }
+
+                matcher = GENERATEN_PATTERN.matcher(param);
+                if (matcher.find()) {
+                    int start = param.indexOf(':') + 1;
+                    int end = param.indexOf('}');
+                    int size = Integer.parseInt(param.substring(start, end));
+                    return StringUtils.replace(param, matcher.group(), StringGenerator.generateNumeric(size));
+                }
+
+                matcher = ENV_PATTERN.matcher(param);
+                if (matcher.find()) {
+                    int start = param.indexOf(':') + 1;
+                    int end = param.indexOf('}');
+                    String key = param.substring(start, end);
+                    return StringUtils.replace(param, matcher.group(), Configuration.get(key, StandardConfigurationOption.ENVIRONMENT).orElse(""));
+                }
+
+                matcher = TESTDATA_PATTERN.matcher(param);
+                if (matcher.find()) {
+                    int start = param.indexOf(':') + 1;
+                    int end = param.indexOf('}');
+                    String key = param.substring(start, end);
+                    return StringUtils.replace(param, matcher.group(), R.TESTDATA.get(key));
+                }
+                matcher = L10N_PATTERN.matcher(param);
+                String initStrL10N = param;
+                while (matcher.find()) {
+                    int start = param.indexOf(SpecialKeywords.L10N + ":") + 5;
+                    int end = param.indexOf('}');
+                    String key = param.substring(start, end);
+                    param = StringUtils.replace(param, matcher.group(), L10N.getText(key));
+                }
+                // in case if L10N pattern was applied
+                if (!initStrL10N.equalsIgnoreCase(param)) {
+                    return param;
+                }
+            } catch (Exception e) {
+                LOGGER.error(e.getMessage());
+            }
+            return param;
+        }
+    }
+}